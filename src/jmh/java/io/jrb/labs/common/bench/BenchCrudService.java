@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonpatch.JsonPatch;
+import io.jrb.labs.common.repository.EntityRepository;
+import io.jrb.labs.common.service.crud.CrudResult;
+import io.jrb.labs.common.service.crud.CrudServiceConfig;
+import io.jrb.labs.common.service.crud.CrudServiceSupport;
+import io.jrb.labs.common.service.crud.EntityPage;
+import io.jrb.labs.common.service.crud.FindEntitiesResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Exposes the protected {@link CrudServiceSupport} operations to the benchmarks.
+ */
+public class BenchCrudService extends CrudServiceSupport<BenchEntity, BenchEntity.BenchEntityBuilder> {
+
+    public BenchCrudService(final EntityRepository<BenchEntity> entityRepository, final ObjectMapper objectMapper) {
+        super(BenchEntity.class, entityRepository, objectMapper);
+    }
+
+    public BenchCrudService(
+            final EntityRepository<BenchEntity> entityRepository,
+            final ObjectMapper objectMapper,
+            final CrudServiceConfig<BenchEntity> config
+    ) {
+        super(BenchEntity.class, entityRepository, objectMapper, config);
+    }
+
+    public Mono<BenchEntity> create(final BenchEntity.BenchEntityBuilder entityBuilder) {
+        return createEntity(entityBuilder);
+    }
+
+    public Flux<CrudResult<BenchEntity>> createAll(final Flux<BenchEntity.BenchEntityBuilder> entityBuilders) {
+        return createEntities(entityBuilders);
+    }
+
+    public Mono<BenchEntity> find(final UUID guid) {
+        return findEntityByGuid(guid);
+    }
+
+    public Mono<FindEntitiesResult<BenchEntity>> findMany(final Collection<UUID> guids) {
+        return findEntitiesByGuids(guids);
+    }
+
+    public Mono<BenchEntity> update(final UUID guid, final String payload) {
+        return updateEntity(guid, entity -> entity.toBuilder()
+                .payload(payload)
+                .counter(entity.getCounter() + 1));
+    }
+
+    public Mono<BenchEntity> patch(final UUID guid, final JsonPatch patch) {
+        return findEntityByGuid(guid)
+                .map(entity -> applyPatch(guid, patch, BenchResource.fromEntity(entity), BenchResource.class))
+                .flatMap(resource -> updateEntity(guid, entity -> entity.toBuilder()
+                        .name(resource.getName())
+                        .payload(resource.getPayload())
+                        .counter(resource.getCounter())));
+    }
+
+    public Flux<CrudResult<BenchEntity>> patchAll(final Flux<Tuple2<UUID, JsonPatch>> patches) {
+        return patchEntities(patches, BenchResource::fromEntity, BenchResource.class, (entity, resource) ->
+                entity.toBuilder()
+                        .name(resource.getName())
+                        .payload(resource.getPayload())
+                        .counter(resource.getCounter()));
+    }
+
+    public Mono<EntityPage<BenchEntity>> retrievePage(final Long cursor, final int pageSize) {
+        return retrieveEntities(cursor, pageSize);
+    }
+
+    public Mono<List<BenchSummary>> retrieveSummaryPage(final Long cursor, final int pageSize) {
+        return retrieveEntities(cursor, pageSize, BenchSummary.class).collectList();
+    }
+
+    public Flux<BenchEntity> retrieveAll() {
+        return retrieveEntities();
+    }
+
+}
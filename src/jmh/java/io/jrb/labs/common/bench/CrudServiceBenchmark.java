@@ -0,0 +1,175 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonpatch.JsonPatch;
+import io.jrb.labs.common.repository.EntityRepository;
+import io.jrb.labs.common.repository.InMemoryEntityRepository;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuples;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures the {@code CrudServiceSupport} operations against an in-memory repository and an embedded H2 database.
+ * Each invocation issues {@code concurrency} operations, each subscribed on the parallel scheduler so they really
+ * overlap even against the synchronous in-memory repository, and waits for all of them to complete.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrudServiceBenchmark {
+
+    private static final int SEED_SIZE = 1_000;
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"memory", "h2"})
+    private String backend;
+
+    @Param({"64", "4096"})
+    private int entitySize;
+
+    @Param({"1", "16"})
+    private int concurrency;
+
+    private EntityRepository<BenchEntity> repository;
+
+    private BenchCrudService service;
+
+    private List<UUID> guids;
+
+    private JsonPatch patch;
+
+    private String payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        repository = "h2".equals(backend) ? new H2BenchRepository("crud-bench")
+                : new InMemoryEntityRepository<BenchEntity>(BenchEntity::toBuilder);
+        service = new BenchCrudService(repository, objectMapper);
+        payload = RandomStringUtils.randomAlphanumeric(entitySize);
+        patch = JsonPatch.fromJson(objectMapper.readTree(
+                "[{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"patched\"},"
+                        + "{\"op\":\"replace\",\"path\":\"/counter\",\"value\":42}]"
+        ));
+        guids = Flux.range(0, SEED_SIZE)
+                .concatMap(i -> service.create(newEntity()))
+                .map(BenchEntity::getGuid)
+                .collectList()
+                .block();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (repository instanceof AutoCloseable) {
+            ((AutoCloseable) repository).close();
+        }
+    }
+
+    @Benchmark
+    public Object create() {
+        return run(i -> service.create(newEntity()));
+    }
+
+    @Benchmark
+    public Object find() {
+        return run(i -> service.find(randomGuid()));
+    }
+
+    @Benchmark
+    public Object findMany() {
+        return run(i -> service.findMany(guids.subList(0, PAGE_SIZE)));
+    }
+
+    @Benchmark
+    public Object update() {
+        return run(i -> service.update(randomGuid(), payload));
+    }
+
+    @Benchmark
+    public Object patch() {
+        return run(i -> service.patch(randomGuid(), patch));
+    }
+
+    @Benchmark
+    public Object patchBatch() {
+        return service.patchAll(Flux.fromIterable(guids.subList(0, PAGE_SIZE)).map(guid -> Tuples.of(guid, patch)))
+                .blockLast();
+    }
+
+    @Benchmark
+    public Object retrieve() {
+        return run(i -> service.retrievePage(null, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object retrieveProjected() {
+        return run(i -> service.retrieveSummaryPage(null, PAGE_SIZE));
+    }
+
+    private Object run(final Function<Integer, Mono<?>> operation) {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> operation.apply(i).subscribeOn(Schedulers.parallel()), concurrency)
+                .blockLast();
+    }
+
+    private BenchEntity.BenchEntityBuilder newEntity() {
+        return BenchEntity.builder()
+                .name(RandomStringUtils.randomAlphanumeric(16))
+                .payload(payload)
+                .counter(0);
+    }
+
+    private UUID randomGuid() {
+        return guids.get(ThreadLocalRandom.current().nextInt(guids.size()));
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jrb.labs.common.entity.GuidGenerator;
+import io.jrb.labs.common.service.crud.CrudServiceConfig;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures bulk insert throughput into an embedded H2 table with a unique GUID index, comparing random GUIDs
+ * against time-ordered GUIDs. The index grows across iterations, so the difference reflects index locality.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GuidInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"random", "timeOrdered"})
+    private String guidStrategy;
+
+    private H2BenchRepository repository;
+
+    private BenchCrudService service;
+
+    private String payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final GuidGenerator guidGenerator = "timeOrdered".equals(guidStrategy)
+                ? GuidGenerator.timeOrdered(Clock.systemUTC())
+                : GuidGenerator.random();
+        repository = new H2BenchRepository("guid-bench");
+        service = new BenchCrudService(repository, new ObjectMapper(), CrudServiceConfig.<BenchEntity>builder()
+                .guidGenerator(guidGenerator)
+                .createBatchSize(BATCH_SIZE)
+                .build());
+        payload = RandomStringUtils.randomAlphanumeric(64);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repository.close();
+    }
+
+    @Benchmark
+    public Object insertBatch() {
+        return service.createAll(Flux.range(0, BATCH_SIZE).map(i -> BenchEntity.builder()
+                .name("guid-bench")
+                .payload(payload)
+                .counter(i)))
+                .blockLast();
+    }
+
+}
@@ -0,0 +1,460 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.bench;
+
+import io.jrb.labs.common.repository.EntityProjector;
+import io.jrb.labs.common.repository.EntityRepository;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.reactivestreams.Publisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Provides a plain JDBC repository over an embedded, in-memory H2 database so the service layer can be measured
+ * together with a real SQL engine.
+ */
+public class H2BenchRepository implements EntityRepository<BenchEntity>, AutoCloseable {
+
+    private static final String COLUMNS =
+            "id, guid, name, payload, counter, created_on, created_by, modified_on, modified_by";
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final JdbcConnectionPool connectionPool;
+
+    private final Scheduler scheduler;
+
+    private final EntityProjector projector = new EntityProjector();
+
+    public H2BenchRepository(final String databaseName) {
+        this.connectionPool = JdbcConnectionPool.create("jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1", "sa", "");
+        this.connectionPool.setMaxConnections(64);
+        this.scheduler = Schedulers.newBoundedElastic(64, Integer.MAX_VALUE, "h2-bench");
+        execute("CREATE TABLE IF NOT EXISTS bench_entity ("
+                + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "guid UUID NOT NULL UNIQUE, "
+                + "name VARCHAR(255), "
+                + "payload VARCHAR(1048576), "
+                + "counter INT, "
+                + "created_on TIMESTAMP, "
+                + "created_by VARCHAR(255), "
+                + "modified_on TIMESTAMP, "
+                + "modified_by VARCHAR(255))");
+        execute("CREATE INDEX IF NOT EXISTS bench_entity_modified ON bench_entity (modified_on, id)");
+    }
+
+    @Override
+    public void close() {
+        execute("DROP ALL OBJECTS");
+        connectionPool.dispose();
+        scheduler.dispose();
+    }
+
+    @Override
+    public Mono<BenchEntity> findByGuid(final UUID guid) {
+        return queryOne("SELECT " + COLUMNS + " FROM bench_entity WHERE guid = ?", guid);
+    }
+
+    @Override
+    public Flux<BenchEntity> findByIdGreaterThan(final Long id, final Pageable pageable) {
+        return query("SELECT " + COLUMNS + " FROM bench_entity WHERE id > ? ORDER BY id LIMIT ?",
+                id, pageable.getPageSize());
+    }
+
+    @Override
+    public <T> Mono<T> findByGuid(final UUID guid, final Class<T> projection) {
+        return queryOne("SELECT " + columns(projection) + " FROM bench_entity WHERE guid = ?", guid)
+                .map(entity -> projector.project(entity, projection));
+    }
+
+    @Override
+    public <T> Flux<T> findByIdGreaterThan(final Long id, final Pageable pageable, final Class<T> projection) {
+        return query("SELECT " + columns(projection) + " FROM bench_entity WHERE id > ? ORDER BY id LIMIT ?",
+                id, pageable.getPageSize())
+                .map(entity -> projector.project(entity, projection));
+    }
+
+    @Override
+    public Flux<BenchEntity> findByModifiedOnGreaterThanOrModifiedOnAndIdGreaterThan(
+            final Instant modifiedOn, final Instant sameModifiedOn, final Long id, final Pageable pageable
+    ) {
+        return query("SELECT " + COLUMNS + " FROM bench_entity WHERE modified_on > ? OR (modified_on = ? AND id > ?) "
+                        + "ORDER BY modified_on, id LIMIT ?",
+                timestamp(modifiedOn), timestamp(sameModifiedOn), id, pageable.getPageSize());
+    }
+
+    @Override
+    public Flux<BenchEntity> findByGuidIn(final Collection<UUID> guids) {
+        return guids.isEmpty()
+                ? Flux.empty()
+                : query("SELECT " + COLUMNS + " FROM bench_entity WHERE guid IN (" + placeholders(guids) + ")",
+                        guids.toArray());
+    }
+
+    @Override
+    public Mono<Integer> deleteByGuidIn(final Collection<UUID> guids) {
+        return guids.isEmpty()
+                ? Mono.just(0)
+                : withConnection(connection -> update(connection,
+                        "DELETE FROM bench_entity WHERE guid IN (" + placeholders(guids) + ")", guids.toArray()));
+    }
+
+    /**
+     * Upserts in one transaction: an existing row is locked and updated in place, and otherwise the entity is inserted
+     * only while its GUID is still absent, so a concurrent insert of the same GUID falls through to the update path.
+     */
+    @Override
+    public Mono<BenchEntity> upsert(
+            final UUID guid, final Supplier<? extends BenchEntity> insert, final UnaryOperator<BenchEntity> update
+    ) {
+        return withTransaction(connection -> {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                final BenchEntity existing = lockByGuid(connection, guid);
+                if (existing != null) {
+                    return save(connection, update.apply(existing));
+                }
+                final BenchEntity inserted = insertIfAbsent(connection, insert.get());
+                if (inserted != null) {
+                    return inserted;
+                }
+            }
+            throw new OptimisticLockingFailureException("Concurrent delete during upsert - guid=" + guid);
+        });
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends BenchEntity> Mono<S> save(final S entity) {
+        return withConnection(connection -> (S) save(connection, entity));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends BenchEntity> Flux<S> saveAll(final Iterable<S> entities) {
+        return withTransaction(connection -> {
+            final List<S> saved = new ArrayList<>();
+            for (final S entity : entities) {
+                saved.add((S) save(connection, entity));
+            }
+            return saved;
+        }).flatMapMany(Flux::fromIterable);
+    }
+
+    @Override
+    public <S extends BenchEntity> Flux<S> saveAll(final Publisher<S> entityStream) {
+        return Flux.from(entityStream).collectList().flatMapMany(this::saveAll);
+    }
+
+    @Override
+    public Mono<BenchEntity> findById(final Long id) {
+        return queryOne("SELECT " + COLUMNS + " FROM bench_entity WHERE id = ?", id);
+    }
+
+    @Override
+    public Mono<BenchEntity> findById(final Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(final Long id) {
+        return findById(id).hasElement();
+    }
+
+    @Override
+    public Mono<Boolean> existsById(final Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<BenchEntity> findAll() {
+        return query("SELECT " + COLUMNS + " FROM bench_entity ORDER BY id");
+    }
+
+    @Override
+    public Flux<BenchEntity> findAllById(final Iterable<Long> ids) {
+        return Flux.fromIterable(ids).concatMap(this::findById);
+    }
+
+    @Override
+    public Flux<BenchEntity> findAllById(final Publisher<Long> idStream) {
+        return Flux.from(idStream).concatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return withConnection(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM bench_entity")) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        });
+    }
+
+    @Override
+    public Mono<Void> deleteById(final Long id) {
+        return withConnection(connection -> update(connection, "DELETE FROM bench_entity WHERE id = ?", id)).then();
+    }
+
+    @Override
+    public Mono<Void> deleteById(final Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(final BenchEntity entity) {
+        return deleteById(entity.getId());
+    }
+
+    @Override
+    public Mono<Void> deleteAll(final Iterable<? extends BenchEntity> entities) {
+        return Flux.fromIterable(entities).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(final Publisher<? extends BenchEntity> entityStream) {
+        return Flux.from(entityStream).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return withConnection(connection -> update(connection, "DELETE FROM bench_entity")).then();
+    }
+
+    private BenchEntity save(final Connection connection, final BenchEntity entity) throws SQLException {
+        if (entity.getId() != null) {
+            update(connection, "UPDATE bench_entity SET name = ?, payload = ?, counter = ?, "
+                            + "modified_on = ?, modified_by = ? WHERE id = ?",
+                    entity.getName(), entity.getPayload(), entity.getCounter(),
+                    timestamp(entity.getModifiedOn()), entity.getModifiedBy(), entity.getId());
+            return entity;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO bench_entity (guid, name, payload, counter, created_on, created_by, modified_on, "
+                        + "modified_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            bind(statement, entity.getGuid(), entity.getName(), entity.getPayload(), entity.getCounter(),
+                    timestamp(entity.getCreatedOn()), entity.getCreatedBy(),
+                    timestamp(entity.getModifiedOn()), entity.getModifiedBy());
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                keys.next();
+                return entity.toBuilder().id(keys.getLong(1)).build();
+            }
+        }
+    }
+
+    private BenchEntity lockByGuid(final Connection connection, final UUID guid) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + COLUMNS + " FROM bench_entity WHERE guid = ? FOR UPDATE")) {
+            bind(statement, guid);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? map(resultSet) : null;
+            }
+        }
+    }
+
+    /**
+     * Inserts the entity unless its GUID already exists, returning null when another writer got there first.
+     */
+    private BenchEntity insertIfAbsent(final Connection connection, final BenchEntity entity) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO bench_entity (guid, name, payload, counter, created_on, created_by, modified_on, "
+                        + "modified_by) SELECT ?, ?, ?, ?, ?, ?, ?, ? "
+                        + "WHERE NOT EXISTS (SELECT 1 FROM bench_entity WHERE guid = ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            bind(statement, entity.getGuid(), entity.getName(), entity.getPayload(), entity.getCounter(),
+                    timestamp(entity.getCreatedOn()), entity.getCreatedBy(),
+                    timestamp(entity.getModifiedOn()), entity.getModifiedBy(), entity.getGuid());
+            if (statement.executeUpdate() == 0) {
+                return null;
+            }
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                keys.next();
+                return entity.toBuilder().id(keys.getLong(1)).build();
+            }
+        } catch (final SQLException e) {
+            if (UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private Mono<BenchEntity> queryOne(final String sql, final Object... parameters) {
+        return query(sql, parameters).next();
+    }
+
+    private Flux<BenchEntity> query(final String sql, final Object... parameters) {
+        return withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                bind(statement, parameters);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    final List<BenchEntity> entities = new ArrayList<>();
+                    while (resultSet.next()) {
+                        entities.add(map(resultSet));
+                    }
+                    return entities;
+                }
+            }
+        }).flatMapMany(Flux::fromIterable);
+    }
+
+    private int update(final Connection connection, final String sql, final Object... parameters)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, parameters);
+            return statement.executeUpdate();
+        }
+    }
+
+    private void execute(final String sql) {
+        try (Connection connection = connectionPool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (final SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> Mono<T> withConnection(final SqlFunction<T> function) {
+        return Mono.fromCallable(() -> {
+            try (Connection connection = connectionPool.getConnection()) {
+                return function.apply(connection);
+            }
+        }).subscribeOn(scheduler);
+    }
+
+    /**
+     * Runs the function in a single transaction, so a batch costs one commit rather than one per statement.
+     */
+    private <T> Mono<T> withTransaction(final SqlFunction<T> function) {
+        return withConnection(connection -> {
+            connection.setAutoCommit(false);
+            try {
+                final T result = function.apply(connection);
+                connection.commit();
+                return result;
+            } catch (final SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        });
+    }
+
+    private String columns(final Class<?> projection) {
+        final List<String> propertyNames = projector.propertyNames(BenchEntity.class, projection);
+        return propertyNames.isEmpty()
+                ? COLUMNS
+                : propertyNames.stream()
+                        .map(name -> name.replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase(Locale.ROOT))
+                        .collect(Collectors.joining(", "));
+    }
+
+    private static void bind(final PreparedStatement statement, final Object... parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+    }
+
+    private static BenchEntity map(final ResultSet resultSet) throws SQLException {
+        final BenchEntity.BenchEntityBuilder builder = BenchEntity.builder();
+        final ResultSetMetaData metaData = resultSet.getMetaData();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            switch (metaData.getColumnLabel(i).toLowerCase(Locale.ROOT)) {
+                case "id":
+                    builder.id(resultSet.getLong(i));
+                    break;
+                case "guid":
+                    builder.guid(resultSet.getObject(i, UUID.class));
+                    break;
+                case "name":
+                    builder.name(resultSet.getString(i));
+                    break;
+                case "payload":
+                    builder.payload(resultSet.getString(i));
+                    break;
+                case "counter":
+                    builder.counter(resultSet.getInt(i));
+                    break;
+                case "created_on":
+                    builder.createdOn(instant(resultSet.getTimestamp(i)));
+                    break;
+                case "created_by":
+                    builder.createdBy(resultSet.getString(i));
+                    break;
+                case "modified_on":
+                    builder.modifiedOn(instant(resultSet.getTimestamp(i)));
+                    break;
+                case "modified_by":
+                    builder.modifiedBy(resultSet.getString(i));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return builder.build();
+    }
+
+    private static String placeholders(final Collection<?> values) {
+        return String.join(", ", Collections.nCopies(values.size(), "?"));
+    }
+
+    private static Timestamp timestamp(final Instant instant) {
+        return (instant != null) ? Timestamp.from(instant) : null;
+    }
+
+    private static Instant instant(final Timestamp timestamp) {
+        return (timestamp != null) ? timestamp.toInstant() : null;
+    }
+
+    @FunctionalInterface
+    private interface SqlFunction<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+
+}
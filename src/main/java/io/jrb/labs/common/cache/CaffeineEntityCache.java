@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheWriter;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jrb.labs.common.entity.Entity;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides a size-bounded, time-limited entity cache backed by Caffeine (W-TinyLFU eviction). The generation of the
+ * last write to each GUID is remembered for the time-to-live, so a read that raced a write cannot put the stale
+ * entity back. Those records are bounded too; when one is evicted for size, its generation becomes a floor that
+ * older reads must clear, so eviction can only cost a cache fill, never let a stale entity in.
+ *
+ * @param <E> the entity type
+ */
+public class CaffeineEntityCache<E extends Entity> implements EntityCache<E> {
+
+    private static final int WRITE_GENERATIONS_PER_ENTRY = 2;
+
+    private final Cache<UUID, E> cache;
+
+    private final Cache<UUID, Long> writeGenerations;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong evictedGeneration = new AtomicLong();
+
+    private volatile long clearedGeneration;
+
+    public CaffeineEntityCache(final long maximumSize, final Duration timeToLive) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        this.writeGenerations = Caffeine.newBuilder()
+                .maximumSize(maximumSize * WRITE_GENERATIONS_PER_ENTRY)
+                .expireAfterWrite(timeToLive)
+                .writer(new CacheWriter<UUID, Long>() {
+                    @Override
+                    public void write(final UUID guid, final Long writeGeneration) {
+                    }
+
+                    @Override
+                    public void delete(final UUID guid, final Long writeGeneration, final RemovalCause cause) {
+                        if (cause == RemovalCause.SIZE) {
+                            evictedGeneration.accumulateAndGet(writeGeneration, Math::max);
+                        }
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public Optional<E> get(final UUID guid) {
+        return Optional.ofNullable(cache.getIfPresent(guid));
+    }
+
+    @Override
+    public void put(final E entity) {
+        writeGenerations.put(entity.getGuid(), generation.incrementAndGet());
+        cache.put(entity.getGuid(), entity);
+    }
+
+    @Override
+    public long generation() {
+        return generation.get();
+    }
+
+    @Override
+    public void putIfUnchanged(final E entity, final long readGeneration) {
+        final UUID guid = entity.getGuid();
+        cache.asMap().putIfAbsent(guid, entity);
+        // Checked after the put: a write recorded later replaces or removes the entry itself
+        if (isWrittenSince(guid, readGeneration)) {
+            cache.asMap().remove(guid, entity);
+        }
+    }
+
+    @Override
+    public void invalidate(final UUID guid) {
+        writeGenerations.put(guid, generation.incrementAndGet());
+        cache.invalidate(guid);
+    }
+
+    @Override
+    public void invalidateAll() {
+        clearedGeneration = generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public EntityCacheStats stats() {
+        final CacheStats stats = cache.stats();
+        return EntityCacheStats.builder()
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .evictionCount(stats.evictionCount())
+                .estimatedSize(cache.estimatedSize())
+                .build();
+    }
+
+    private boolean isWrittenSince(final UUID guid, final long readGeneration) {
+        final Long writeGeneration = writeGenerations.getIfPresent(guid);
+        return clearedGeneration > readGeneration
+                || evictedGeneration.get() > readGeneration
+                || (writeGeneration != null && writeGeneration > readGeneration);
+    }
+
+}
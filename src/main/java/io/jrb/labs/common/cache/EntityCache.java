@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.cache;
+
+import io.jrb.labs.common.entity.Entity;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Defines a GUID-keyed cache of entities that sits in front of an entity repository.
+ *
+ * @param <E> the entity type
+ */
+public interface EntityCache<E extends Entity> {
+
+    @SuppressWarnings("unchecked")
+    static <E extends Entity> EntityCache<E> disabled() {
+        return (EntityCache<E>) NoOpEntityCache.INSTANCE;
+    }
+
+    Optional<E> get(UUID guid);
+
+    /**
+     * Caches an entity that was just written to the repository.
+     */
+    void put(E entity);
+
+    /**
+     * Returns the current write generation. Readers capture it before loading an entity from the repository and
+     * pass it to {@link #putIfUnchanged}.
+     */
+    long generation();
+
+    /**
+     * Caches an entity loaded from the repository if none is cached yet, unless it was written or invalidated since
+     * the given generation, in which case the loaded copy may already be stale.
+     */
+    void putIfUnchanged(E entity, long generation);
+
+    void invalidate(UUID guid);
+
+    void invalidateAll();
+
+    EntityCacheStats stats();
+
+}
@@ -0,0 +1,74 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.cache;
+
+import io.jrb.labs.common.entity.Entity;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Provides a cache that never holds anything, used when caching is disabled.
+ */
+final class NoOpEntityCache implements EntityCache<Entity> {
+
+    static final NoOpEntityCache INSTANCE = new NoOpEntityCache();
+
+    private static final EntityCacheStats EMPTY_STATS = EntityCacheStats.builder().build();
+
+    private NoOpEntityCache() {
+    }
+
+    @Override
+    public Optional<Entity> get(final UUID guid) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(final Entity entity) {
+    }
+
+    @Override
+    public long generation() {
+        return 0;
+    }
+
+    @Override
+    public void putIfUnchanged(final Entity entity, final long generation) {
+    }
+
+    @Override
+    public void invalidate(final UUID guid) {
+    }
+
+    @Override
+    public void invalidateAll() {
+    }
+
+    @Override
+    public EntityCacheStats stats() {
+        return EMPTY_STATS;
+    }
+
+}
@@ -43,4 +43,11 @@ public interface Entity {
 
     String getModifiedBy();
 
+    /**
+     * Returns the optimistic-locking version of this entity, or null if the entity is not versioned.
+     */
+    default Long getVersion() {
+        return null;
+    }
+
 }
@@ -48,4 +48,12 @@ public interface EntityBuilder<E extends Entity, B extends EntityBuilder<E, B>>
 
     B modifiedOn(Instant createdOn);
 
+    /**
+     * Sets the optimistic-locking version; builders of unversioned entities may ignore it.
+     */
+    @SuppressWarnings("unchecked")
+    default B version(Long version) {
+        return (B) this;
+    }
+
 }
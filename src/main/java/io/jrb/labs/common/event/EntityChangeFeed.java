@@ -0,0 +1,158 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.event;
+
+import io.jrb.labs.common.entity.Entity;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes a hot stream of change events for a single entity type. Writers hand events to a serialized sink and
+ * never wait on subscribers: each subscriber is decoupled by its own backpressure strategy and delivered to on a
+ * separate scheduler, so a slow subscriber only affects itself.
+ *
+ * @param <E> the entity type
+ */
+@Slf4j
+public class EntityChangeFeed<E extends Entity> {
+
+    private final String entityType;
+
+    private final Clock clock;
+
+    private final ChangeFeedBackpressure backpressure;
+
+    private final int bufferSize;
+
+    private final boolean includeEntity;
+
+    private final Scheduler scheduler;
+
+    private final DirectProcessor<EntityChangeEvent<E>> processor = DirectProcessor.create();
+
+    private final FluxSink<EntityChangeEvent<E>> sink = processor.sink();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public EntityChangeFeed(
+            final String entityType,
+            final Clock clock,
+            final ChangeFeedBackpressure backpressure,
+            final int bufferSize,
+            final boolean includeEntity
+    ) {
+        this(entityType, clock, backpressure, bufferSize, includeEntity, Schedulers.parallel());
+    }
+
+    public EntityChangeFeed(
+            final String entityType,
+            final Clock clock,
+            final ChangeFeedBackpressure backpressure,
+            final int bufferSize,
+            final boolean includeEntity,
+            final Scheduler scheduler
+    ) {
+        this.entityType = entityType;
+        this.clock = clock;
+        this.backpressure = backpressure;
+        this.bufferSize = bufferSize;
+        this.includeEntity = includeEntity;
+        this.scheduler = scheduler;
+    }
+
+    public Flux<EntityChangeEvent<E>> events() {
+        return events(backpressure);
+    }
+
+    public Flux<EntityChangeEvent<E>> events(final ChangeFeedBackpressure strategy) {
+        final Flux<EntityChangeEvent<E>> events;
+        switch (strategy) {
+            case DROP:
+                events = processor.onBackpressureDrop(this::dropped);
+                break;
+            case LATEST:
+                events = processor.onBackpressureLatest();
+                break;
+            default:
+                events = processor.onBackpressureBuffer(bufferSize, this::dropped);
+                break;
+        }
+        return events.publishOn(scheduler, bufferSize);
+    }
+
+    public void publishCreated(final E entity) {
+        publish(EntityChangeType.CREATED, entity.getGuid(), entity);
+    }
+
+    public void publishUpdated(final E entity) {
+        publish(EntityChangeType.UPDATED, entity.getGuid(), entity);
+    }
+
+    public void publishDeleted(final UUID guid) {
+        publish(EntityChangeType.DELETED, guid, null);
+    }
+
+    public boolean hasSubscribers() {
+        return processor.hasDownstreams();
+    }
+
+    public long droppedCount() {
+        return droppedCount.get();
+    }
+
+    public void close() {
+        sink.complete();
+    }
+
+    private void publish(final EntityChangeType changeType, final UUID guid, final E entity) {
+        if (!processor.hasDownstreams()) {
+            return;
+        }
+        final Instant modifiedOn = (entity != null && entity.getModifiedOn() != null)
+                ? entity.getModifiedOn()
+                : clock.instant();
+        sink.next(EntityChangeEvent.<E>builder()
+                .entityType(entityType)
+                .guid(guid)
+                .changeType(changeType)
+                .modifiedOn(modifiedOn)
+                .entity(includeEntity ? entity : null)
+                .build());
+    }
+
+    private void dropped(final EntityChangeEvent<E> event) {
+        droppedCount.incrementAndGet();
+        log.debug("dropped {} change event for {} {}", event.getChangeType(), entityType, event.getGuid());
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.h2;
+
+import lombok.extern.slf4j.Slf4j;
+import org.h2.tools.Server;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manages the lifecycle of the embedded H2 web console and TCP server, keeping them off the startup path
+ * unless configured otherwise.
+ */
+@Slf4j
+public class H2ServerManager {
+
+    private static final String STORE_STATISTICS_QUERY =
+            "SELECT NAME, VALUE FROM INFORMATION_SCHEMA.SETTINGS WHERE NAME LIKE 'info.%' ORDER BY NAME";
+
+    private final H2ServerProperties properties;
+    private Server consoleServer;
+    private Duration consoleStartupTime;
+    private Server tcpServer;
+    private Duration tcpStartupTime;
+    private volatile boolean stopped;
+
+    public H2ServerManager(final H2ServerProperties properties) {
+        this.properties = properties;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void start() {
+        startIfRequired(properties.getConsoleMode(), "h2-console-start", this::startConsole);
+        startIfRequired(properties.getTcpMode(), "h2-tcp-start", this::startTcpServer);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public synchronized void stop() {
+        stopped = true;
+        if (consoleServer != null) {
+            log.info("stopping h2 console at {}", consoleServer.getURL());
+            consoleServer.stop();
+            consoleServer = null;
+        }
+        if (tcpServer != null) {
+            log.info("stopping h2 tcp server at {}", tcpServer.getURL());
+            tcpServer.stop();
+            tcpServer = null;
+        }
+    }
+
+    /**
+     * Starts the web console if it is not already running; used for {@link H2StartMode#LAZY} startup.
+     */
+    public synchronized boolean startConsole() {
+        if (consoleServer != null || stopped || properties.getConsoleMode() == H2StartMode.DISABLED) {
+            return consoleServer != null;
+        }
+        final List<String> args = new ArrayList<>();
+        Collections.addAll(args, "-webPort", properties.getConsolePort().toString(), "-webDaemon");
+        if (properties.isConsoleAllowOthers()) {
+            args.add("-webAllowOthers");
+        }
+        final long startNanos = System.nanoTime();
+        consoleServer = startServer("console", () -> Server.createWebServer(args.toArray(new String[0])));
+        if (consoleServer != null) {
+            consoleStartupTime = Duration.ofNanos(System.nanoTime() - startNanos);
+            log.info("started h2 console at {} in {} ms", consoleServer.getURL(), consoleStartupTime.toMillis());
+        }
+        return consoleServer != null;
+    }
+
+    /**
+     * Starts the TCP server if it is not already running; used for {@link H2StartMode#LAZY} startup.
+     */
+    public synchronized boolean startTcpServer() {
+        if (tcpServer != null || stopped || properties.getTcpMode() == H2StartMode.DISABLED) {
+            return tcpServer != null;
+        }
+        final List<String> args = new ArrayList<>();
+        Collections.addAll(args, "-tcpPort", properties.getTcpPort().toString(), "-tcpDaemon");
+        if (properties.isTcpAllowOthers()) {
+            args.add("-tcpAllowOthers");
+        }
+        final long startNanos = System.nanoTime();
+        tcpServer = startServer("tcp server", () -> Server.createTcpServer(args.toArray(new String[0])));
+        if (tcpServer != null) {
+            tcpStartupTime = Duration.ofNanos(System.nanoTime() - startNanos);
+            log.info("started h2 tcp server at {} in {} ms", tcpServer.getURL(), tcpStartupTime.toMillis());
+        }
+        return tcpServer != null;
+    }
+
+    public synchronized H2ServerStatus status() {
+        return H2ServerStatus.builder()
+                .consoleRunning(consoleServer != null && consoleServer.isRunning(false))
+                .consoleUrl((consoleServer != null) ? consoleServer.getURL() : null)
+                .consoleStartupTime(consoleStartupTime)
+                .tcpRunning(tcpServer != null && tcpServer.isRunning(false))
+                .tcpUrl((tcpServer != null) ? tcpServer.getURL() : null)
+                .tcpStartupTime(tcpStartupTime)
+                .build();
+    }
+
+    /**
+     * Reads the MVStore statistics (cache hits, file reads and writes, page counts) exposed by an open connection.
+     */
+    public Map<String, String> readStoreStatistics(final Connection connection) throws SQLException {
+        final Map<String, String> statistics = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(STORE_STATISTICS_QUERY)) {
+            while (resultSet.next()) {
+                statistics.put(resultSet.getString(1), resultSet.getString(2));
+            }
+        }
+        log.debug("h2 store statistics: {}", statistics);
+        return statistics;
+    }
+
+    private void startIfRequired(final H2StartMode mode, final String threadName, final Runnable starter) {
+        switch (mode) {
+            case EAGER:
+                starter.run();
+                break;
+            case ASYNC:
+                final Thread thread = new Thread(starter, threadName);
+                thread.setDaemon(true);
+                thread.start();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private Server startServer(final String name, final ServerFactory factory) {
+        try {
+            return factory.create().start();
+        } catch (final SQLException e) {
+            log.error("unable to start h2 " + name, e);
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ServerFactory {
+        Server create() throws SQLException;
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.h2;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Embedded H2 server and MVStore tuning settings. Store settings left unset keep the H2 defaults.
+ */
+@Getter
+public class H2ServerProperties {
+
+    private final H2StartMode consoleMode;
+    private final Integer consolePort;
+    private final boolean consoleAllowOthers;
+    private final H2StartMode tcpMode;
+    private final Integer tcpPort;
+    private final boolean tcpAllowOthers;
+    private final Integer cacheSizeKb;
+    private final Boolean compress;
+    private final Integer writeDelayMs;
+    private final H2FileLock fileLock;
+
+    @Builder
+    public H2ServerProperties(
+            @Value("${h2.console.mode:ASYNC}") final H2StartMode consoleMode,
+            @Value("${h2.console.port:8082}") final Integer consolePort,
+            @Value("${h2.console.allow-others:false}") final Boolean consoleAllowOthers,
+            @Value("${h2.tcp.mode:DISABLED}") final H2StartMode tcpMode,
+            @Value("${h2.tcp.port:9092}") final Integer tcpPort,
+            @Value("${h2.tcp.allow-others:false}") final Boolean tcpAllowOthers,
+            @Value("${h2.store.cache-size-kb:#{null}}") final Integer cacheSizeKb,
+            @Value("${h2.store.compress:#{null}}") final Boolean compress,
+            @Value("${h2.store.write-delay-ms:#{null}}") final Integer writeDelayMs,
+            @Value("${h2.store.file-lock:#{null}}") final H2FileLock fileLock
+    ) {
+        this.consoleMode = (consoleMode != null) ? consoleMode : H2StartMode.ASYNC;
+        this.consolePort = (consolePort != null) ? consolePort : 8082;
+        this.consoleAllowOthers = Boolean.TRUE.equals(consoleAllowOthers);
+        this.tcpMode = (tcpMode != null) ? tcpMode : H2StartMode.DISABLED;
+        this.tcpPort = (tcpPort != null) ? tcpPort : 9092;
+        this.tcpAllowOthers = Boolean.TRUE.equals(tcpAllowOthers);
+        this.cacheSizeKb = cacheSizeKb;
+        this.compress = compress;
+        this.writeDelayMs = writeDelayMs;
+        this.fileLock = fileLock;
+    }
+
+    public static H2ServerProperties defaults() {
+        return H2ServerProperties.builder().build();
+    }
+
+    /**
+     * Returns the configured MVStore settings keyed by their JDBC URL setting name.
+     */
+    public Map<String, String> storeSettings() {
+        final Map<String, String> settings = new LinkedHashMap<>();
+        if (cacheSizeKb != null) {
+            settings.put("CACHE_SIZE", cacheSizeKb.toString());
+        }
+        if (compress != null) {
+            settings.put("COMPRESS", compress.toString().toUpperCase(Locale.ROOT));
+        }
+        if (writeDelayMs != null) {
+            settings.put("WRITE_DELAY", writeDelayMs.toString());
+        }
+        if (fileLock != null) {
+            settings.put("FILE_LOCK", fileLock.name());
+        }
+        return settings;
+    }
+
+    /**
+     * Appends the configured MVStore settings to a JDBC URL, leaving any setting the URL already declares intact.
+     */
+    public String applyTo(final String jdbcUrl) {
+        final String existing = jdbcUrl.toUpperCase(Locale.ROOT);
+        final StringBuilder url = new StringBuilder(jdbcUrl);
+        storeSettings().forEach((name, value) -> {
+            if (!existing.contains(";" + name + "=")) {
+                url.append(';').append(name).append('=').append(value);
+            }
+        });
+        return url.toString();
+    }
+
+}
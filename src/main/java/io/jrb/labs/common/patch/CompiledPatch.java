@@ -0,0 +1,145 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.patch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jackson.JsonNumEquals;
+import com.github.fge.jsonpatch.JsonPatchException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Defines a JSON patch that has been validated and bound to the property accessors of a resource class.
+ * A compiled patch may be applied repeatedly; each application builds a new resource from the patched property
+ * values, leaving the original untouched.
+ *
+ * @param <R> the resource type
+ */
+public class CompiledPatch<R> {
+
+    private final ObjectMapper objectMapper;
+
+    private final ResourceAccessors accessors;
+
+    private final Class<R> resourceClass;
+
+    private final List<CompiledOperation> operations;
+
+    CompiledPatch(
+            final ObjectMapper objectMapper,
+            final ResourceAccessors accessors,
+            final Class<R> resourceClass,
+            final List<CompiledOperation> operations
+    ) {
+        this.objectMapper = objectMapper;
+        this.accessors = accessors;
+        this.resourceClass = resourceClass;
+        this.operations = List.copyOf(operations);
+    }
+
+    /**
+     * Applies this patch to a copy of the given resource. Removed properties are left unset on the copy, so they take
+     * the same default as a property absent from the JSON form would.
+     *
+     * @param resource the resource to patch, which is left untouched
+     * @return the patched copy, or empty when the patch targets a value that is absent from the resource's
+     * JSON form and must therefore be evaluated against the JSON tree instead
+     * @throws JsonPatchException if a test operation fails or a value cannot be bound to its property
+     */
+    public Optional<R> apply(final R resource) throws JsonPatchException {
+        final Object[] values = accessors.read(resource);
+        final boolean[] removed = new boolean[values.length];
+        for (final CompiledOperation operation : operations) {
+            final PropertyAccessor property = operation.getProperty();
+            final Object current = values[property.getIndex()];
+            if (current == null && operation.getType().requiresTarget()) {
+                return Optional.empty();
+            }
+            switch (operation.getType()) {
+                case TEST:
+                    final JsonNode actual = objectMapper.valueToTree(current);
+                    if (!JsonNumEquals.getInstance().equivalent(actual, operation.getValue())) {
+                        throw new JsonPatchException("value differs from expectations - path=/" + property.getName());
+                    }
+                    break;
+                case REMOVE:
+                    values[property.getIndex()] = null;
+                    removed[property.getIndex()] = true;
+                    break;
+                case ADD:
+                case REPLACE:
+                    values[property.getIndex()] = read(property, operation.getValue());
+                    removed[property.getIndex()] = false;
+                    break;
+                default:
+                    return Optional.empty();
+            }
+        }
+
+        final Object target = accessors.newTarget();
+        for (final PropertyAccessor property : accessors.getProperties()) {
+            if (!removed[property.getIndex()]) {
+                set(property, target, values[property.getIndex()]);
+            }
+        }
+        try {
+            return Optional.of(resourceClass.cast(accessors.build(target)));
+        } catch (final IllegalArgumentException e) {
+            final JsonPatchException exception = new JsonPatchException(
+                    "unable to build patched " + resourceClass.getSimpleName()
+            );
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+
+    private Object read(final PropertyAccessor property, final JsonNode value) throws JsonPatchException {
+        try {
+            return property.read(value);
+        } catch (final IOException e) {
+            throw patchException(property, e);
+        }
+    }
+
+    private void set(final PropertyAccessor property, final Object target, final Object value)
+            throws JsonPatchException {
+        try {
+            property.set(target, value);
+        } catch (final IllegalArgumentException e) {
+            throw patchException(property, e);
+        }
+    }
+
+    private JsonPatchException patchException(final PropertyAccessor property, final Exception cause) {
+        final JsonPatchException exception = new JsonPatchException(
+                "unable to bind value - path=/" + property.getName()
+        );
+        exception.initCause(cause);
+        return exception;
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.patch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.JsonPatchException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies JSON patches directly to resource objects using per-class property accessors, falling back to a
+ * JSON tree round-trip for patches or resource classes that cannot be compiled.
+ */
+public class JsonPatchEngine {
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<Class<?>, ResourceAccessors> accessorsByClass = new ConcurrentHashMap<>();
+
+    public JsonPatchEngine(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public <R> R apply(final JsonPatch patch, final R resource, final Class<R> resourceClass)
+            throws JsonPatchException, JsonProcessingException {
+        return apply(patch, compile(patch, resourceClass), resource, resourceClass);
+    }
+
+    /**
+     * Applies a patch already compiled by {@link #compile}, so the same patch can be applied to many resources
+     * without recompiling it. Falls back to the JSON tree when the patch could not be compiled or applied.
+     */
+    public <R> R apply(
+            final JsonPatch patch,
+            final Optional<CompiledPatch<R>> compiled,
+            final R resource,
+            final Class<R> resourceClass
+    ) throws JsonPatchException, JsonProcessingException {
+        if (compiled.isPresent()) {
+            final Optional<R> patched = compiled.get().apply(resource);
+            if (patched.isPresent()) {
+                return patched.get();
+            }
+        }
+        return applyToTree(patch, resource, resourceClass);
+    }
+
+    public <R> Optional<CompiledPatch<R>> compile(final JsonPatch patch, final Class<R> resourceClass) {
+        final ResourceAccessors accessors = accessorsByClass.computeIfAbsent(
+                resourceClass, c -> ResourceAccessors.introspect(objectMapper, c)
+        );
+        if (!accessors.isSupported()) {
+            return Optional.empty();
+        }
+
+        final JsonNode operations = objectMapper.valueToTree(patch);
+        final List<CompiledOperation> compiled = new ArrayList<>(operations.size());
+        for (final JsonNode operation : operations) {
+            final Optional<PatchOperationType> type = PatchOperationType.fromName(operation.path("op").asText());
+            final Optional<PropertyAccessor> property = accessors.findByPath(operation.path("path").asText());
+            if (type.isEmpty() || property.isEmpty()) {
+                return Optional.empty();
+            }
+            if (type.get().requiresValue() && !operation.has("value")) {
+                return Optional.empty();
+            }
+            compiled.add(new CompiledOperation(type.get(), property.get(), operation.get("value")));
+        }
+        return Optional.of(new CompiledPatch<>(objectMapper, accessors, resourceClass, compiled));
+    }
+
+    private <R> R applyToTree(final JsonPatch patch, final R resource, final Class<R> resourceClass)
+            throws JsonPatchException, JsonProcessingException {
+        final JsonNode patched = patch.apply(objectMapper.convertValue(resource, JsonNode.class));
+        return objectMapper.treeToValue(patched, resourceClass);
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.patch;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Enumerates the JSON patch operations that can be compiled against resource properties.
+ */
+enum PatchOperationType {
+
+    ADD("add", true, false),
+    REMOVE("remove", false, true),
+    REPLACE("replace", true, true),
+    TEST("test", true, true);
+
+    private final String operationName;
+
+    private final boolean valueRequired;
+
+    private final boolean targetRequired;
+
+    PatchOperationType(final String operationName, final boolean valueRequired, final boolean targetRequired) {
+        this.operationName = operationName;
+        this.valueRequired = valueRequired;
+        this.targetRequired = targetRequired;
+    }
+
+    static Optional<PatchOperationType> fromName(final String operationName) {
+        return Arrays.stream(values())
+                .filter(type -> type.operationName.equals(operationName))
+                .findFirst();
+    }
+
+    boolean requiresValue() {
+        return valueRequired;
+    }
+
+    boolean requiresTarget() {
+        return targetRequired;
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.patch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+
+import java.io.IOException;
+
+/**
+ * Provides precompiled read, write and value-binding access to a single resource property. Values are read from
+ * the resource and written to a fresh bean or builder.
+ */
+class PropertyAccessor {
+
+    private final int index;
+
+    private final String name;
+
+    private final AnnotatedMember getter;
+
+    private final AnnotatedMember setter;
+
+    private final ObjectReader reader;
+
+    PropertyAccessor(
+            final int index,
+            final String name,
+            final AnnotatedMember getter,
+            final AnnotatedMember setter,
+            final ObjectReader reader
+    ) {
+        this.index = index;
+        this.name = name;
+        this.getter = getter;
+        this.setter = setter;
+        this.reader = reader;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Object get(final Object resource) {
+        return getter.getValue(resource);
+    }
+
+    void set(final Object target, final Object value) {
+        setter.setValue(target, value);
+    }
+
+    Object read(final JsonNode value) throws IOException {
+        return reader.readValue(value);
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.patch;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotation;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedConstructor;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.util.Converter;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Holds the property accessors discovered for a resource class. Patched resources are rebuilt either through a
+ * mutable bean's default constructor and setters, or through the builder named by {@link JsonDeserialize#builder}.
+ * Only classes whose JSON form is a plain copy of their properties are supported: any Jackson annotation on the
+ * class or its properties, a mix-in, or a default inclusion other than {@code ALWAYS} leaves the class to the JSON
+ * tree path, since the two paths could otherwise disagree.
+ */
+class ResourceAccessors {
+
+    private static final ResourceAccessors UNSUPPORTED = new ResourceAccessors(null, null, List.of());
+
+    private final AnnotatedConstructor targetConstructor;
+
+    private final AnnotatedMethod buildMethod;
+
+    private final List<PropertyAccessor> properties;
+
+    private final Map<String, PropertyAccessor> propertiesByName = new HashMap<>();
+
+    private ResourceAccessors(
+            final AnnotatedConstructor targetConstructor,
+            final AnnotatedMethod buildMethod,
+            final List<PropertyAccessor> properties
+    ) {
+        this.targetConstructor = targetConstructor;
+        this.buildMethod = buildMethod;
+        this.properties = List.copyOf(properties);
+        properties.forEach(property -> propertiesByName.put(property.getName(), property));
+    }
+
+    static ResourceAccessors introspect(final ObjectMapper objectMapper, final Class<?> resourceClass) {
+        final JavaType resourceType = objectMapper.constructType(resourceClass);
+        if (objectMapper.findMixInClassFor(resourceClass) != null
+                || !includesAllValues(objectMapper, resourceClass)
+                || hasJacksonAnnotations(resourceClass)) {
+            return UNSUPPORTED;
+        }
+
+        final BeanDescription source = objectMapper.getSerializationConfig().introspect(resourceType);
+        final BeanDescription resource = objectMapper.getDeserializationConfig().introspect(resourceType);
+        final Class<?> builderClass = resource.findPOJOBuilder();
+        final BeanDescription target = (builderClass != null)
+                ? objectMapper.getDeserializationConfig().introspectForBuilder(objectMapper.constructType(builderClass))
+                : resource;
+        final AnnotatedConstructor targetConstructor = target.findDefaultConstructor();
+        final AnnotatedMethod buildMethod = (builderClass != null) ? findBuildMethod(target) : null;
+        if (targetConstructor == null
+                || (builderClass != null && (buildMethod == null || hasJacksonAnnotations(builderClass)))
+                || source.findAnyGetter() != null
+                || target.findAnySetterAccessor() != null) {
+            return UNSUPPORTED;
+        }
+
+        final Map<String, BeanPropertyDefinition> targetProperties = new HashMap<>();
+        for (final BeanPropertyDefinition property : target.findProperties()) {
+            targetProperties.put(property.getName(), property);
+        }
+        final List<PropertyAccessor> properties = new ArrayList<>();
+        for (final BeanPropertyDefinition property : source.findProperties()) {
+            final BeanPropertyDefinition targetProperty = targetProperties.get(property.getName());
+            final AnnotatedMember getter = property.getAccessor();
+            final AnnotatedMember setter = (targetProperty != null) ? findSetter(targetProperty, builderClass) : null;
+            if (getter == null || setter == null
+                    || hasJacksonAnnotations(property) || hasJacksonAnnotations(targetProperty)) {
+                return UNSUPPORTED;
+            }
+            getter.fixAccess(true);
+            setter.fixAccess(true);
+            properties.add(new PropertyAccessor(
+                    properties.size(), property.getName(), getter, setter,
+                    objectMapper.readerFor(property.getPrimaryType())
+            ));
+        }
+        targetConstructor.fixAccess(true);
+        if (buildMethod != null) {
+            buildMethod.fixAccess(true);
+        }
+        return new ResourceAccessors(targetConstructor, buildMethod, properties);
+    }
+
+    boolean isSupported() {
+        return targetConstructor != null;
+    }
+
+    Optional<PropertyAccessor> findByPath(final String path) {
+        if (!path.startsWith("/") || path.indexOf('/', 1) >= 0) {
+            return Optional.empty();
+        }
+        final String name = path.substring(1).replace("~1", "/").replace("~0", "~");
+        return Optional.ofNullable(propertiesByName.get(name));
+    }
+
+    List<PropertyAccessor> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Reads every property of the resource, indexed by {@link PropertyAccessor#getIndex}.
+     */
+    Object[] read(final Object resource) {
+        final Object[] values = new Object[properties.size()];
+        for (final PropertyAccessor property : properties) {
+            values[property.getIndex()] = property.get(resource);
+        }
+        return values;
+    }
+
+    /**
+     * Creates an empty bean or builder for the properties to be set on.
+     */
+    Object newTarget() {
+        try {
+            return targetConstructor.call();
+        } catch (final Exception e) {
+            throw new IllegalStateException(
+                    "unable to instantiate " + targetConstructor.getDeclaringClass().getName(), e
+            );
+        }
+    }
+
+    /**
+     * Turns a target from {@link #newTarget} into the resource, invoking the build method for builders.
+     *
+     * @throws IllegalArgumentException if the builder rejects its properties
+     */
+    Object build(final Object target) {
+        if (buildMethod == null) {
+            return target;
+        }
+        try {
+            return buildMethod.callOn(target);
+        } catch (final Exception e) {
+            throw new IllegalArgumentException("unable to build " + buildMethod.getFullName(), e);
+        }
+    }
+
+    private static AnnotatedMember findSetter(final BeanPropertyDefinition property, final Class<?> builderClass) {
+        if (property.hasSetter()) {
+            return property.getSetter();
+        }
+        final boolean writableField = builderClass == null && property.hasField()
+                && !Modifier.isFinal(property.getField().getAnnotated().getModifiers());
+        return writableField ? property.getField() : null;
+    }
+
+    private static AnnotatedMethod findBuildMethod(final BeanDescription builder) {
+        final JsonPOJOBuilder.Value config = builder.findPOJOBuilderConfig();
+        final String buildMethodName = (config != null) ? config.buildMethodName : JsonPOJOBuilder.DEFAULT_BUILD_METHOD;
+        return builder.findMethod(buildMethodName, new Class<?>[0]);
+    }
+
+    private static boolean includesAllValues(final ObjectMapper objectMapper, final Class<?> resourceClass) {
+        final JsonInclude.Value inclusion = objectMapper.getSerializationConfig()
+                .getDefaultPropertyInclusion(resourceClass);
+        return includesAll(inclusion.getValueInclusion()) && includesAll(inclusion.getContentInclusion());
+    }
+
+    private static boolean includesAll(final JsonInclude.Include include) {
+        return include == JsonInclude.Include.ALWAYS || include == JsonInclude.Include.USE_DEFAULTS;
+    }
+
+    private static boolean hasJacksonAnnotations(final BeanPropertyDefinition property) {
+        return property != null && Stream.of(property.getField(), property.getGetter(), property.getSetter())
+                .filter(member -> member != null)
+                .map(Annotated::getAnnotated)
+                .anyMatch(ResourceAccessors::hasJacksonAnnotations);
+    }
+
+    private static boolean hasJacksonAnnotations(final AnnotatedElement element) {
+        return Arrays.stream(element.getAnnotations())
+                .anyMatch(annotation -> annotation.annotationType().isAnnotationPresent(JacksonAnnotation.class)
+                        && !isBuilderBinding(annotation));
+    }
+
+    private static boolean isBuilderBinding(final Annotation annotation) {
+        if (annotation instanceof JsonPOJOBuilder) {
+            return true;
+        }
+        if (annotation instanceof JsonDeserialize) {
+            final JsonDeserialize deserialize = (JsonDeserialize) annotation;
+            return deserialize.using() == JsonDeserializer.None.class
+                    && deserialize.converter() == Converter.None.class
+                    && deserialize.as() == Void.class;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Defines the blocking JPA counterpart of {@link EntityRepository}, for use with a
+ * {@link JpaEntityRepositoryAdapter}.
+ *
+ * @param <E> the entity class
+ */
+@NoRepositoryBean
+public interface BlockingEntityRepository<E> extends JpaRepository<E, Long> {
+
+    Optional<E> findByGuid(UUID guid);
+
+    <T> Optional<T> findByGuid(UUID guid, Class<T> projection);
+
+    List<E> findByIdGreaterThan(Long id, Pageable pageable);
+
+    <T> List<T> findByIdGreaterThan(Long id, Pageable pageable, Class<T> projection);
+
+    List<E> findByGuidIn(Collection<UUID> guids);
+
+    List<E> findByModifiedOnGreaterThanOrModifiedOnAndIdGreaterThan(
+            Instant modifiedOn, Instant sameModifiedOn, Long id, Pageable pageable
+    );
+
+    @Modifying
+    @Transactional
+    @Query("delete from #{#entityName} e where e.guid in :guids")
+    int deleteByGuidIn(@Param("guids") Collection<UUID> guids);
+
+    /**
+     * Inserts or updates by GUID in a single transaction, flushing the insert so a concurrent insert of the same
+     * GUID fails here on the unique constraint rather than at a later commit.
+     */
+    @Transactional
+    default E upsert(final UUID guid, final Supplier<? extends E> insert, final UnaryOperator<E> update) {
+        return findByGuid(guid)
+                .<E>map(existing -> save(update.apply(existing)))
+                .orElseGet(() -> saveAndFlush(insert.get()));
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.repository;
+
+import io.jrb.labs.common.entity.Entity;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Defines a resumable position in the {@code (modifiedOn, id)} ordering used for incremental delta reads. The
+ * cursor can be serialized to an opaque token and handed back by clients to resume where they left off. Both
+ * coordinates are required; a cursor cannot be positioned on an entity that has never been stamped with
+ * {@code modifiedOn}.
+ */
+@Value
+public class DeltaCursor {
+
+    Instant modifiedOn;
+
+    Long id;
+
+    public DeltaCursor(final Instant modifiedOn, final Long id) {
+        if (modifiedOn == null || id == null) {
+            throw new IllegalArgumentException("Delta cursor requires modifiedOn and id: " + modifiedOn + "|" + id);
+        }
+        this.modifiedOn = modifiedOn;
+        this.id = id;
+    }
+
+    /**
+     * Returns a cursor positioned just before the first entity modified at or after the given instant.
+     */
+    public static DeltaCursor since(final Instant modifiedOn) {
+        return new DeltaCursor(modifiedOn, Long.MIN_VALUE);
+    }
+
+    public static DeltaCursor after(final Entity entity) {
+        return new DeltaCursor(entity.getModifiedOn(), entity.getId());
+    }
+
+    public static DeltaCursor fromToken(final String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("Missing delta cursor");
+        }
+        try {
+            final String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            final int separator = decoded.lastIndexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Malformed delta cursor: " + token);
+            }
+            return new DeltaCursor(
+                    Instant.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1))
+            );
+        } catch (final DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed delta cursor: " + token, e);
+        }
+    }
+
+    public String toToken() {
+        final String raw = modifiedOn + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
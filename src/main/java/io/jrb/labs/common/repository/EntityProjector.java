@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.repository;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.beans.ConstructorProperties;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Maps entities onto interface projections (backed by Spring Data projection proxies) or DTO projections (populated
+ * through the constructor whose parameter names match entity properties), and reports which properties a projection
+ * reads so repositories can limit the columns they select.
+ *
+ * <p>A DTO constructor's property names come from its {@link ConstructorProperties} annotation when present, which
+ * Lombok adds to generated constructors when {@code lombok.anyConstructor.addConstructorProperties} is enabled.
+ * Otherwise they are read from the compiled parameter names, which requires compiling the DTO with
+ * {@code -parameters} (or with debug information).
+ */
+public class EntityProjector {
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    private final ConcurrentMap<Class<?>, DtoConstructor> dtoConstructors = new ConcurrentHashMap<>();
+
+    /**
+     * Projects the source onto the given type; the source itself is returned when it already is of that type.
+     */
+    public <T> T project(final Object source, final Class<T> type) {
+        if (type.isInstance(source)) {
+            return type.cast(source);
+        } else if (type.isInterface()) {
+            return projectionFactory.createProjection(type, source);
+        } else {
+            return type.cast(dtoConstructor(type).instantiate(source));
+        }
+    }
+
+    /**
+     * Returns the source properties read by the given projection type, or an empty list if it reads all of them.
+     */
+    public List<String> propertyNames(final Class<?> sourceType, final Class<?> type) {
+        if (type.isAssignableFrom(sourceType)) {
+            return Collections.emptyList();
+        } else if (type.isInterface()) {
+            return projectionFactory.getProjectionInformation(type).getInputProperties().stream()
+                    .map(PropertyDescriptor::getName)
+                    .collect(Collectors.toList());
+        } else {
+            return dtoConstructor(type).parameterNames;
+        }
+    }
+
+    private DtoConstructor dtoConstructor(final Class<?> type) {
+        return dtoConstructors.computeIfAbsent(type, this::resolveDtoConstructor);
+    }
+
+    private DtoConstructor resolveDtoConstructor(final Class<?> type) {
+        // an explicitly named constructor wins, then the widest one
+        final Comparator<Constructor<?>> preference = Comparator
+                .<Constructor<?>, Boolean>comparing(c -> c.isAnnotationPresent(ConstructorProperties.class))
+                .thenComparingInt(Constructor::getParameterCount);
+        final Constructor<?> constructor = Arrays.stream(type.getDeclaredConstructors())
+                .max(preference)
+                .orElseThrow(() -> new IllegalArgumentException(format("No constructor for %s", type.getName())));
+        final ConstructorProperties properties = constructor.getAnnotation(ConstructorProperties.class);
+        final String[] parameterNames = (properties != null)
+                ? properties.value()
+                : parameterNameDiscoverer.getParameterNames(constructor);
+        if (parameterNames == null || parameterNames.length != constructor.getParameterCount()) {
+            throw new IllegalArgumentException(format(
+                    "Unable to discover constructor parameter names for projection %s; compile it with -parameters "
+                            + "or annotate its constructor with @ConstructorProperties", type.getName()
+            ));
+        }
+        return new DtoConstructor(constructor, Arrays.asList(parameterNames));
+    }
+
+    private static final class DtoConstructor {
+
+        private final Constructor<?> constructor;
+
+        private final List<String> parameterNames;
+
+        private DtoConstructor(final Constructor<?> constructor, final List<String> parameterNames) {
+            this.constructor = constructor;
+            this.parameterNames = Collections.unmodifiableList(parameterNames);
+        }
+
+        private Object instantiate(final Object source) {
+            final BeanWrapper sourceWrapper = PropertyAccessorFactory.forBeanPropertyAccess(source);
+            final Object[] args = parameterNames.stream()
+                    .map(sourceWrapper::getPropertyValue)
+                    .toArray();
+            return BeanUtils.instantiateClass(constructor, args);
+        }
+
+    }
+
+}
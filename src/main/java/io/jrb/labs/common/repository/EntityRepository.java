@@ -23,10 +23,20 @@
  */
 package io.jrb.labs.common.repository;
 
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * Defines a reactive CRUD repository for managing entities.
@@ -37,4 +47,93 @@ public interface EntityRepository<E> extends ReactiveCrudRepository<E, Long> {
 
     Mono<E> findByGuid(UUID guid);
 
+    Flux<E> findByIdGreaterThan(Long id, Pageable pageable);
+
+    /**
+     * Finds an entity by GUID, reading only the properties required by the given interface or DTO projection.
+     */
+    <T> Mono<T> findByGuid(UUID guid, Class<T> projection);
+
+    <T> Flux<T> findByIdGreaterThan(Long id, Pageable pageable, Class<T> projection);
+
+    Flux<E> findByGuidIn(Collection<UUID> guids);
+
+    /**
+     * Finds entities positioned after {@code (modifiedOn, id)}; backed by an index on {@code (modifiedOn, id)}.
+     */
+    Flux<E> findByModifiedOnGreaterThanOrModifiedOnAndIdGreaterThan(
+            Instant modifiedOn, Instant sameModifiedOn, Long id, Pageable pageable
+    );
+
+    /**
+     * Deletes every entity whose GUID is in the given collection with a single statement.
+     *
+     * @param guids the GUIDs to delete
+     * @return the number of entities actually removed
+     */
+    Mono<Integer> deleteByGuidIn(Collection<UUID> guids);
+
+    /**
+     * Inserts the entity supplied by {@code insert} when no entity has the given GUID, and otherwise saves the
+     * existing entity as transformed by {@code update}.
+     *
+     * <p>This default is not a single-statement upsert: it costs a lookup and a save, two round trips, and it is not
+     * atomic. When a concurrent insert wins the GUID between the two, the save fails with
+     * {@link DuplicateKeyException} and the whole operation is retried once, which then takes the update path; a
+     * concurrent update surfaces as the repository's optimistic locking failure. Repositories that can do better,
+     * such as with a native {@code MERGE} or {@code ON CONFLICT} statement, should override it.
+     *
+     * @param guid the GUID to insert or update
+     * @param insert supplies the entity to insert; only invoked on the insert path
+     * @param update transforms the existing entity; only invoked on the update path
+     * @return the inserted or updated entity
+     */
+    default Mono<E> upsert(final UUID guid, final Supplier<? extends E> insert, final UnaryOperator<E> update) {
+        // deferred so that a retry issues a fresh lookup rather than replaying the one that missed
+        return Mono.defer(() -> findByGuid(guid)
+                .flatMap(existing -> save(update.apply(existing)))
+                .switchIfEmpty(Mono.defer(() -> save(insert.get()))))
+                .retryWhen(Retry.max(1).filter(t -> t instanceof DuplicateKeyException));
+    }
+
+    /**
+     * Retrieves the next page of entities ordered by id, starting after the given keyset cursor.
+     *
+     * @param cursor the id of the last entity already seen, or null to start from the beginning
+     * @param pageSize the maximum number of entities to return
+     * @return the next page of entities
+     */
+    default Flux<E> findPageAfter(final Long cursor, final int pageSize) {
+        final Long afterId = (cursor != null) ? cursor : Long.MIN_VALUE;
+        return findByIdGreaterThan(afterId, PageRequest.of(0, pageSize, Sort.by("id")));
+    }
+
+    /**
+     * Retrieves the next page of projected entities ordered by id, starting after the given keyset cursor.
+     *
+     * @param cursor the id of the last entity already seen, or null to start from the beginning
+     * @param pageSize the maximum number of entities to return
+     * @param projection the interface or DTO projection type
+     * @param <T> the projection type
+     * @return the next page of projected entities
+     */
+    default <T> Flux<T> findPageAfter(final Long cursor, final int pageSize, final Class<T> projection) {
+        final Long afterId = (cursor != null) ? cursor : Long.MIN_VALUE;
+        return findByIdGreaterThan(afterId, PageRequest.of(0, pageSize, Sort.by("id")), projection);
+    }
+
+    /**
+     * Retrieves the next page of entities in {@code (modifiedOn, id)} order, starting after the given delta cursor.
+     *
+     * @param cursor the position of the last entity already seen
+     * @param pageSize the maximum number of entities to return
+     * @return the next page of modified entities
+     */
+    default Flux<E> findModifiedAfter(final DeltaCursor cursor, final int pageSize) {
+        return findByModifiedOnGreaterThanOrModifiedOnAndIdGreaterThan(
+                cursor.getModifiedOn(), cursor.getModifiedOn(), cursor.getId(),
+                PageRequest.of(0, pageSize, Sort.by("modifiedOn", "id"))
+        );
+    }
+
 }
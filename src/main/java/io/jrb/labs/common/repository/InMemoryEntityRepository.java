@@ -0,0 +1,383 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.repository;
+
+import io.jrb.labs.common.entity.Entity;
+import io.jrb.labs.common.entity.EntityBuilder;
+import lombok.Value;
+import org.reactivestreams.Publisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/**
+ * Provides a non-persistent entity repository backed by concurrent id and GUID indexes. Ids are generated from a
+ * lock-free sequence, GUIDs are unique, and versioned entities are saved with compare-and-set semantics, mirroring
+ * what a JPA-backed repository would do. A {@code (modifiedOn, id)} index serves delta reads, and projections are
+ * mapped from the stored entities. Writes to one id are serialized on a striped lock, so the GUID and modified
+ * indexes only change alongside a committed row; reads stay lock-free.
+ *
+ * @param <E> the entity class
+ */
+public class InMemoryEntityRepository<E extends Entity> implements EntityRepository<E> {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentNavigableMap<Long, E> entitiesById = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<UUID, Long> idsByGuid = new ConcurrentHashMap<>();
+
+    private final ConcurrentNavigableMap<ModifiedKey, E> entitiesByModified = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong idSequence = new AtomicLong();
+
+    private final Object[] locks = Stream.generate(Object::new).limit(LOCK_STRIPES).toArray();
+
+    private final Function<E, ? extends EntityBuilder<E, ?>> toBuilder;
+
+    private final EntityProjector projector = new EntityProjector();
+
+    public InMemoryEntityRepository(final Function<E, ? extends EntityBuilder<E, ?>> toBuilder) {
+        this.toBuilder = toBuilder;
+    }
+
+    @Override
+    public Mono<E> findByGuid(final UUID guid) {
+        return Mono.fromSupplier(() -> {
+            final Long id = idsByGuid.get(guid);
+            return (id != null) ? entitiesById.get(id) : null;
+        });
+    }
+
+    @Override
+    public Flux<E> findByIdGreaterThan(final Long id, final Pageable pageable) {
+        return Flux.defer(() -> {
+            final Flux<E> entities = Flux.fromIterable(entitiesById.tailMap(id, false).values());
+            return pageable.isPaged()
+                    ? entities.skip(pageable.getOffset()).take(pageable.getPageSize())
+                    : entities;
+        });
+    }
+
+    @Override
+    public <T> Mono<T> findByGuid(final UUID guid, final Class<T> projection) {
+        return findByGuid(guid).map(entity -> projector.project(entity, projection));
+    }
+
+    @Override
+    public <T> Flux<T> findByIdGreaterThan(final Long id, final Pageable pageable, final Class<T> projection) {
+        return findByIdGreaterThan(id, pageable).map(entity -> projector.project(entity, projection));
+    }
+
+    @Override
+    public Flux<E> findByModifiedOnGreaterThanOrModifiedOnAndIdGreaterThan(
+            final Instant modifiedOn, final Instant sameModifiedOn, final Long id, final Pageable pageable
+    ) {
+        return Flux.defer(() -> {
+            final ModifiedKey from = modifiedOn.equals(sameModifiedOn)
+                    ? new ModifiedKey(sameModifiedOn, id)
+                    : new ModifiedKey(min(modifiedOn, sameModifiedOn), Long.MIN_VALUE);
+            final Flux<E> entities = Flux.fromIterable(entitiesByModified.tailMap(from, false).values())
+                    .filter(entity -> entity.getModifiedOn().isAfter(modifiedOn)
+                            || (entity.getModifiedOn().equals(sameModifiedOn) && entity.getId() > id));
+            return pageable.isPaged()
+                    ? entities.skip(pageable.getOffset()).take(pageable.getPageSize())
+                    : entities;
+        });
+    }
+
+    @Override
+    public Flux<E> findByGuidIn(final Collection<UUID> guids) {
+        return Flux.defer(() -> Flux.fromIterable(guids)
+                .distinct()
+                .<E>handle((guid, sink) -> {
+                    final Long id = idsByGuid.get(guid);
+                    final E entity = (id != null) ? entitiesById.get(id) : null;
+                    if (entity != null) {
+                        sink.next(entity);
+                    }
+                }));
+    }
+
+    @Override
+    public Mono<Integer> deleteByGuidIn(final Collection<UUID> guids) {
+        return Mono.fromSupplier(() -> {
+            int deleted = 0;
+            for (final UUID guid : guids) {
+                final Long id = idsByGuid.get(guid);
+                if (id != null && remove(id)) {
+                    deleted++;
+                }
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * Performs the upsert in a single step: the GUID reservation decides between insert and update, so a racing
+     * insert falls through to the update path instead of failing.
+     */
+    @Override
+    public Mono<E> upsert(final UUID guid, final Supplier<? extends E> insert, final UnaryOperator<E> update) {
+        return Mono.fromSupplier(() -> {
+            if (!idsByGuid.containsKey(guid)) {
+                try {
+                    return insert(insert.get());
+                } catch (final DuplicateKeyException e) {
+                    // lost the race for this guid, so update the winner instead
+                }
+            }
+            final Long id = idsByGuid.get(guid);
+            final E current = (id != null) ? entitiesById.get(id) : null;
+            if (current == null) {
+                throw new OptimisticLockingFailureException(format(
+                        "Concurrent delete during upsert - guid=%s", guid
+                ));
+            }
+            return replace(update.apply(current));
+        });
+    }
+
+    @Override
+    public <S extends E> Mono<S> save(final S entity) {
+        return Mono.fromSupplier(() -> store(entity));
+    }
+
+    @Override
+    public <S extends E> Flux<S> saveAll(final Iterable<S> entities) {
+        return Flux.fromIterable(entities).map(this::store);
+    }
+
+    @Override
+    public <S extends E> Flux<S> saveAll(final Publisher<S> entityStream) {
+        return Flux.from(entityStream).map(this::store);
+    }
+
+    @Override
+    public Mono<E> findById(final Long id) {
+        return Mono.fromSupplier(() -> entitiesById.get(id));
+    }
+
+    @Override
+    public Mono<E> findById(final Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(final Long id) {
+        return Mono.fromSupplier(() -> entitiesById.containsKey(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(final Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<E> findAll() {
+        return Flux.defer(() -> Flux.fromIterable(entitiesById.values()));
+    }
+
+    @Override
+    public Flux<E> findAllById(final Iterable<Long> ids) {
+        return Flux.fromIterable(ids).concatMap(this::findById);
+    }
+
+    @Override
+    public Flux<E> findAllById(final Publisher<Long> idStream) {
+        return Flux.from(idStream).concatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(() -> (long) idsByGuid.size());
+    }
+
+    @Override
+    public Mono<Void> deleteById(final Long id) {
+        return Mono.fromRunnable(() -> remove(id));
+    }
+
+    @Override
+    public Mono<Void> deleteById(final Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(final E entity) {
+        return deleteById(entity.getId());
+    }
+
+    @Override
+    public Mono<Void> deleteAll(final Iterable<? extends E> entities) {
+        return Mono.fromRunnable(() -> entities.forEach(entity -> remove(entity.getId())));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(final Publisher<? extends E> entityStream) {
+        return Flux.from(entityStream).doOnNext(entity -> remove(entity.getId())).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return Mono.fromRunnable(() -> {
+            entitiesById.clear();
+            idsByGuid.clear();
+            entitiesByModified.clear();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <S extends E> S store(final S entity) {
+        return (S) ((entity.getId() == null) ? insert(entity) : replace(entity));
+    }
+
+    private E insert(final E entity) {
+        final long id = idSequence.incrementAndGet();
+        final E stored = toBuilder.apply(entity).id(id).version(0L).build();
+        synchronized (lockFor(id)) {
+            final boolean reserved = reserveGuid(stored);
+            try {
+                entitiesById.put(id, stored);
+            } catch (final RuntimeException e) {
+                releaseGuid(reserved, stored);
+                throw e;
+            }
+            indexModified(null, stored);
+            return stored;
+        }
+    }
+
+    private E replace(final E entity) {
+        final Long id = entity.getId();
+        idSequence.accumulateAndGet(id, Math::max);
+        synchronized (lockFor(id)) {
+            final E current = entitiesById.get(id);
+            final Long expectedVersion = entity.getVersion();
+            if (expectedVersion != null && current != null && !Objects.equals(current.getVersion(), expectedVersion)) {
+                throw new OptimisticLockingFailureException(format(
+                        "Stale version for %s - id=%s, expected=%s, actual=%s",
+                        entity.getClass().getSimpleName(), id, expectedVersion, current.getVersion()
+                ));
+            }
+            final E stored = (expectedVersion != null && current != null)
+                    ? toBuilder.apply(entity).version(expectedVersion + 1).build()
+                    : entity;
+            final boolean guidChanged = (current == null || !Objects.equals(current.getGuid(), stored.getGuid()));
+            final boolean reserved = guidChanged && reserveGuid(stored);
+            try {
+                entitiesById.put(id, stored);
+            } catch (final RuntimeException e) {
+                releaseGuid(reserved, stored);
+                throw e;
+            }
+            if (guidChanged && current != null) {
+                idsByGuid.remove(current.getGuid(), id);
+            }
+            indexModified(current, stored);
+            return stored;
+        }
+    }
+
+    /**
+     * Reserves the entity's GUID for its id, returning whether this call added the reservation.
+     */
+    private boolean reserveGuid(final E entity) {
+        final Long existingId = idsByGuid.putIfAbsent(entity.getGuid(), entity.getId());
+        if (existingId != null && !existingId.equals(entity.getId())) {
+            throw new DuplicateKeyException(format(
+                    "Duplicate guid for %s - guid=%s", entity.getClass().getSimpleName(), entity.getGuid()
+            ));
+        }
+        return existingId == null;
+    }
+
+    private void releaseGuid(final boolean reserved, final E entity) {
+        if (reserved) {
+            idsByGuid.remove(entity.getGuid(), entity.getId());
+        }
+    }
+
+    private boolean remove(final Long id) {
+        synchronized (lockFor(id)) {
+            final E removed = entitiesById.remove(id);
+            if (removed != null) {
+                idsByGuid.remove(removed.getGuid(), id);
+                indexModified(removed, null);
+            }
+            return removed != null;
+        }
+    }
+
+    private Object lockFor(final Long id) {
+        return locks[Math.floorMod(id, LOCK_STRIPES)];
+    }
+
+    private void indexModified(final E previous, final E current) {
+        if (previous != null && previous.getModifiedOn() != null) {
+            entitiesByModified.remove(new ModifiedKey(previous.getModifiedOn(), previous.getId()));
+        }
+        if (current != null && current.getModifiedOn() != null) {
+            entitiesByModified.put(new ModifiedKey(current.getModifiedOn(), current.getId()), current);
+        }
+    }
+
+    private static Instant min(final Instant a, final Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    @Value
+    private static class ModifiedKey implements Comparable<ModifiedKey> {
+
+        Instant modifiedOn;
+
+        Long id;
+
+        @Override
+        public int compareTo(final ModifiedKey other) {
+            final int byModified = modifiedOn.compareTo(other.modifiedOn);
+            return (byModified != 0) ? byModified : id.compareTo(other.id);
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Provides a non-persistent tombstone store, keeping one {@code deletedOn}-ordered index per entity type.
+ */
+public class InMemoryTombstoneStore implements TombstoneStore {
+
+    private static final UUID MIN_GUID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private static final Comparator<Tombstone> ORDER = Comparator.comparing(Tombstone::getDeletedOn)
+            .thenComparing(Tombstone::getGuid);
+
+    private final ConcurrentMap<String, NavigableSet<Tombstone>> tombstonesByType = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Void> record(final Tombstone tombstone) {
+        return Mono.fromRunnable(() -> tombstonesByType
+                .computeIfAbsent(tombstone.getEntityType(), type -> new ConcurrentSkipListSet<>(ORDER))
+                .add(tombstone));
+    }
+
+    @Override
+    public Flux<Tombstone> findDeletedSince(final String entityType, final Instant since) {
+        return Flux.defer(() -> {
+            final NavigableSet<Tombstone> tombstones = tombstonesByType.get(entityType);
+            return (tombstones != null)
+                    ? Flux.fromIterable(tombstones.tailSet(new Tombstone(entityType, MIN_GUID, since), true))
+                    : Flux.empty();
+        });
+    }
+
+    @Override
+    public Mono<Long> purgeBefore(final Instant before) {
+        return Mono.fromSupplier(() -> {
+            long purged = 0;
+            for (final NavigableSet<Tombstone> tombstones : tombstonesByType.values()) {
+                final NavigableSet<Tombstone> expired = tombstones.headSet(
+                        new Tombstone(null, MIN_GUID, before), false
+                );
+                purged += expired.size();
+                expired.clear();
+            }
+            return purged;
+        });
+    }
+
+}
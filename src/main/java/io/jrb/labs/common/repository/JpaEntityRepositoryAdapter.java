@@ -0,0 +1,340 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.repository;
+
+import io.jrb.labs.common.entity.Entity;
+import io.jrb.labs.common.service.crud.CrudMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Adapts a blocking {@link BlockingEntityRepository} to the reactive {@link EntityRepository} contract. Every call
+ * is offloaded to a dedicated, bounded executor (backed by virtual threads when the runtime provides them) so the
+ * event loop never blocks, and bulk reads and writes are split into batches. The executor's queue depth, active
+ * count and rejections are published as metrics, summed across adapters that share a name.
+ *
+ * @param <E> the entity class
+ */
+@Slf4j
+public class JpaEntityRepositoryAdapter<E extends Entity> implements EntityRepository<E>, AutoCloseable {
+
+    public static final String OFFLOAD_QUEUED = "repository.offload.queued";
+    public static final String OFFLOAD_ACTIVE = "repository.offload.active";
+    public static final String OFFLOAD_REJECTED = "repository.offload.rejected";
+
+    public static final String TAG_REPOSITORY = "repository";
+
+    private final BlockingEntityRepository<E> repository;
+
+    private final int batchSize;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Scheduler scheduler;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public JpaEntityRepositoryAdapter(final BlockingEntityRepository<E> repository) {
+        this(repository, JpaEntityRepositoryConfig.defaults());
+    }
+
+    public JpaEntityRepositoryAdapter(
+            final BlockingEntityRepository<E> repository,
+            final JpaEntityRepositoryConfig config
+    ) {
+        this.repository = repository;
+        this.batchSize = config.getBatchSize();
+        this.executor = createExecutor(config);
+        this.scheduler = Schedulers.fromExecutorService(executor, config.getName());
+        bindMetrics(config.getMeterRegistry(), config.getName());
+    }
+
+    @Override
+    public void close() {
+        scheduler.dispose();
+    }
+
+    @Override
+    public Mono<E> findByGuid(final UUID guid) {
+        return offload(() -> repository.findByGuid(guid).orElse(null));
+    }
+
+    @Override
+    public <T> Mono<T> findByGuid(final UUID guid, final Class<T> projection) {
+        return offload(() -> repository.findByGuid(guid, projection).orElse(null));
+    }
+
+    @Override
+    public Flux<E> findByIdGreaterThan(final Long id, final Pageable pageable) {
+        return offloadMany(() -> repository.findByIdGreaterThan(id, pageable));
+    }
+
+    @Override
+    public <T> Flux<T> findByIdGreaterThan(final Long id, final Pageable pageable, final Class<T> projection) {
+        return offloadMany(() -> repository.findByIdGreaterThan(id, pageable, projection));
+    }
+
+    @Override
+    public Flux<E> findByModifiedOnGreaterThanOrModifiedOnAndIdGreaterThan(
+            final Instant modifiedOn, final Instant sameModifiedOn, final Long id, final Pageable pageable
+    ) {
+        return offloadMany(() -> repository.findByModifiedOnGreaterThanOrModifiedOnAndIdGreaterThan(
+                modifiedOn, sameModifiedOn, id, pageable
+        ));
+    }
+
+    @Override
+    public Flux<E> findByGuidIn(final Collection<UUID> guids) {
+        return Flux.fromIterable(guids)
+                .buffer(batchSize)
+                .concatMap(batch -> offloadMany(() -> repository.findByGuidIn(batch)));
+    }
+
+    @Override
+    public Mono<Integer> deleteByGuidIn(final Collection<UUID> guids) {
+        return Flux.fromIterable(guids)
+                .buffer(batchSize)
+                .concatMap(batch -> offload(() -> repository.deleteByGuidIn(batch)))
+                .reduce(0, Integer::sum);
+    }
+
+    /**
+     * Runs the whole upsert as one transactional call on the offload executor, instead of a lookup and a save that
+     * each take a separate hop and transaction. An insert that loses the GUID to a concurrent writer is retried once,
+     * which then takes the update path.
+     */
+    @Override
+    public Mono<E> upsert(final UUID guid, final Supplier<? extends E> insert, final UnaryOperator<E> update) {
+        return offload(() -> repository.upsert(guid, insert, update))
+                .retryWhen(Retry.max(1).filter(t -> t instanceof DataIntegrityViolationException));
+    }
+
+    @Override
+    public <S extends E> Mono<S> save(final S entity) {
+        return offload(() -> repository.save(entity));
+    }
+
+    @Override
+    public <S extends E> Flux<S> saveAll(final Iterable<S> entities) {
+        return saveAll(Flux.fromIterable(entities));
+    }
+
+    @Override
+    public <S extends E> Flux<S> saveAll(final Publisher<S> entityStream) {
+        return Flux.from(entityStream)
+                .buffer(batchSize)
+                .concatMap(batch -> offloadMany(() -> repository.saveAll(batch)));
+    }
+
+    @Override
+    public Mono<E> findById(final Long id) {
+        return offload(() -> repository.findById(id).orElse(null));
+    }
+
+    @Override
+    public Mono<E> findById(final Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(final Long id) {
+        return offload(() -> repository.existsById(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(final Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    /**
+     * Streams every entity in keyset-ordered batches rather than loading the whole table in a single call.
+     */
+    @Override
+    public Flux<E> findAll() {
+        return findBatchAfter(Long.MIN_VALUE)
+                .expand(batch -> (batch.size() < batchSize)
+                        ? Mono.empty()
+                        : findBatchAfter(batch.get(batch.size() - 1).getId()))
+                .concatMapIterable(batch -> batch, 1);
+    }
+
+    @Override
+    public Flux<E> findAllById(final Iterable<Long> ids) {
+        return findAllById(Flux.fromIterable(ids));
+    }
+
+    @Override
+    public Flux<E> findAllById(final Publisher<Long> idStream) {
+        return Flux.from(idStream)
+                .buffer(batchSize)
+                .concatMap(batch -> offloadMany(() -> repository.findAllById(batch)));
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return offload(repository::count);
+    }
+
+    @Override
+    public Mono<Void> deleteById(final Long id) {
+        return offloadRun(() -> repository.deleteById(id));
+    }
+
+    @Override
+    public Mono<Void> deleteById(final Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(final E entity) {
+        return offloadRun(() -> repository.delete(entity));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(final Iterable<? extends E> entities) {
+        return deleteAll(Flux.fromIterable(entities));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(final Publisher<? extends E> entityStream) {
+        return Flux.<E>from(entityStream)
+                .buffer(batchSize)
+                .concatMap(batch -> offloadRun(() -> repository.deleteInBatch(batch)))
+                .then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return offloadRun(repository::deleteAllInBatch);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    private Mono<List<E>> findBatchAfter(final Long cursor) {
+        return offload(() -> repository.findByIdGreaterThan(cursor, PageRequest.of(0, batchSize, Sort.by("id"))));
+    }
+
+    private <T> Mono<T> offload(final Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+
+    private <T> Flux<T> offloadMany(final Callable<? extends Iterable<T>> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler).flatMapIterable(items -> items);
+    }
+
+    private Mono<Void> offloadRun(final Runnable call) {
+        return Mono.<Void>fromRunnable(call).subscribeOn(scheduler);
+    }
+
+    private void bindMetrics(final MeterRegistry registry, final String name) {
+        final Tags tags = Tags.of(TAG_REPOSITORY, name);
+        CrudMetrics.bindGauge(registry, OFFLOAD_QUEUED, tags, this, JpaEntityRepositoryAdapter::getQueueDepth);
+        CrudMetrics.bindGauge(registry, OFFLOAD_ACTIVE, tags, this, JpaEntityRepositoryAdapter::getActiveCount);
+        CrudMetrics.bindCounter(registry, OFFLOAD_REJECTED, tags, this, JpaEntityRepositoryAdapter::getRejectedCount);
+    }
+
+    private ThreadPoolExecutor createExecutor(final JpaEntityRepositoryConfig config) {
+        final ThreadFactory threadFactory = (config.isVirtualThreads() ? virtualThreadFactory(config.getName()) : null);
+        final RejectedExecutionHandler rejectionHandler = new ThreadPoolExecutor.AbortPolicy() {
+            @Override
+            public void rejectedExecution(final Runnable task, final ThreadPoolExecutor executor) {
+                rejectedCount.incrementAndGet();
+                super.rejectedExecution(task, executor);
+            }
+        };
+        final ThreadPoolExecutor threadPool = new ThreadPoolExecutor(
+                config.getMaxConcurrency(),
+                config.getMaxConcurrency(),
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(config.getQueueCapacity()),
+                (threadFactory != null) ? threadFactory : platformThreadFactory(config.getName()),
+                rejectionHandler
+        );
+        threadPool.allowCoreThreadTimeOut(true);
+        log.info("offloading {} repository calls to {} {} threads", config.getName(), config.getMaxConcurrency(),
+                (threadFactory != null) ? "virtual" : "platform");
+        return threadPool;
+    }
+
+    private static ThreadFactory platformThreadFactory(final String name) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Looks up {@code Thread.ofVirtual()} reflectively so this class still runs on Java 11.
+     */
+    private static ThreadFactory virtualThreadFactory(final String name) {
+        try {
+            final Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Object namedBuilder = builderType.getMethod("name", String.class, long.class)
+                    .invoke(builder, name + "-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(namedBuilder);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.repository;
+
+import io.jrb.labs.common.service.crud.CrudMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Defines the offload and batching settings for a {@link JpaEntityRepositoryAdapter}.
+ */
+@Value
+@Builder(toBuilder = true)
+public class JpaEntityRepositoryConfig {
+
+    @Builder.Default
+    String name = "jpa";
+
+    /**
+     * The maximum number of concurrent blocking calls; normally the size of the JDBC connection pool.
+     */
+    @Builder.Default
+    int maxConcurrency = 10;
+
+    @Builder.Default
+    int queueCapacity = 10_000;
+
+    @Builder.Default
+    int batchSize = 500;
+
+    /**
+     * Runs blocking calls on virtual threads when the runtime supports them.
+     */
+    @Builder.Default
+    boolean virtualThreads = true;
+
+    @Builder.Default
+    MeterRegistry meterRegistry = CrudMetrics.defaultRegistry();
+
+    public static JpaEntityRepositoryConfig defaults() {
+        return JpaEntityRepositoryConfig.builder().build();
+    }
+
+}
@@ -32,6 +32,7 @@ import lombok.Value;
 import org.springframework.http.HttpStatus;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -56,11 +57,7 @@ public class ErrorResponse {
     List<String> bindingErrors;
 
     public static ErrorResponse build(final HttpStatus status, final String message) {
-        return builder()
-                .status(status)
-                .code(status.value())
-                .message(message)
-                .build();
+        return new ErrorResponse(status, status.value(), message, Instant.now(), Collections.emptyList());
     }
 
     @JsonPOJOBuilder(withPrefix = "")
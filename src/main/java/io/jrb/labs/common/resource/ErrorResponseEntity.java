@@ -23,6 +23,7 @@
  */
 package io.jrb.labs.common.resource;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -36,6 +37,10 @@ public class ErrorResponseEntity extends ResponseEntity<ErrorResponse> {
         return new ErrorResponseEntity(ErrorResponse.build(HttpStatus.CONFLICT, message));
     }
 
+    public static ErrorResponseEntity gatewayTimeout(final String message) {
+        return new ErrorResponseEntity(ErrorResponse.build(HttpStatus.GATEWAY_TIMEOUT, message));
+    }
+
     public static ErrorResponseEntity notFound(final String message) {
         return new ErrorResponseEntity(ErrorResponse.build(HttpStatus.NOT_FOUND, message));
     }
@@ -44,8 +49,12 @@ public class ErrorResponseEntity extends ResponseEntity<ErrorResponse> {
         return new ErrorResponseEntity(ErrorResponse.build(HttpStatus.INTERNAL_SERVER_ERROR, message));
     }
 
+    public static ErrorResponseEntity serviceUnavailable(final String message) {
+        return new ErrorResponseEntity(ErrorResponse.build(HttpStatus.SERVICE_UNAVAILABLE, message));
+    }
+
     public ErrorResponseEntity(final ErrorResponse body) {
-        super(body, body.getStatus());
+        super(body, HttpHeaders.EMPTY, body.getStatus());
     }
 
 }
@@ -0,0 +1,186 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.resource;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes an {@link ErrorResponse} straight into a {@link DataBuffer}, producing the same JSON document as the
+ * Jackson mapping (non-empty fields only, ISO-8601 timestamp) without reflection or intermediate strings. The
+ * leading status and code fields are pre-encoded once per {@link HttpStatus}. The buffer is released if encoding
+ * fails part-way.
+ */
+public class ErrorResponseWriter {
+
+    private static final byte[] OPEN = bytes("{");
+    private static final byte[] STATUS = bytes("\"status\":\"");
+    private static final byte[] CODE = bytes("\"code\":");
+    private static final byte[] MESSAGE = bytes("\"message\":\"");
+    private static final byte[] TIMESTAMP = bytes("\"timestamp\":\"");
+    private static final byte[] BINDING_ERRORS = bytes("\"bindingErrors\":[");
+    private static final byte[] QUOTE = bytes("\"");
+    private static final byte[] COMMA = bytes(",");
+    private static final byte[] CLOSE_ARRAY = bytes("]");
+    private static final byte[] CLOSE = bytes("}");
+
+    private static final Map<HttpStatus, byte[]> STATUS_PREFIXES = new EnumMap<>(HttpStatus.class);
+
+    static {
+        for (final HttpStatus status : HttpStatus.values()) {
+            STATUS_PREFIXES.put(status, bytes("{\"status\":\"" + status.name() + "\",\"code\":" + status.value()));
+        }
+    }
+
+    public DataBuffer write(final ErrorResponse response, final DataBufferFactory bufferFactory) {
+        final String message = response.getMessage();
+        final DataBuffer buffer = bufferFactory.allocateBuffer(
+                96 + ((message != null) ? message.length() : 0)
+        );
+
+        try {
+            boolean first = writePrefix(buffer, response);
+            if (message != null && !message.isEmpty()) {
+                first = separate(buffer, first);
+                buffer.write(MESSAGE);
+                writeEscaped(buffer, message);
+                buffer.write(QUOTE);
+            }
+            if (response.getTimestamp() != null) {
+                first = separate(buffer, first);
+                buffer.write(TIMESTAMP);
+                buffer.write(response.getTimestamp().toString(), StandardCharsets.UTF_8);
+                buffer.write(QUOTE);
+            }
+            final List<String> bindingErrors = response.getBindingErrors();
+            if (bindingErrors != null && !bindingErrors.isEmpty()) {
+                separate(buffer, first);
+                buffer.write(BINDING_ERRORS);
+                for (int i = 0; i < bindingErrors.size(); i++) {
+                    if (i > 0) {
+                        buffer.write(COMMA);
+                    }
+                    writeString(buffer, bindingErrors.get(i));
+                }
+                buffer.write(CLOSE_ARRAY);
+            }
+            buffer.write(CLOSE);
+            return buffer;
+        } catch (final RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+
+    private boolean writePrefix(final DataBuffer buffer, final ErrorResponse response) {
+        final HttpStatus status = response.getStatus();
+        final Integer code = response.getCode();
+        if (status != null && code != null && code == status.value()) {
+            buffer.write(STATUS_PREFIXES.get(status));
+            return false;
+        }
+
+        buffer.write(OPEN);
+        boolean first = true;
+        if (status != null) {
+            buffer.write(STATUS);
+            buffer.write(status.name(), StandardCharsets.UTF_8);
+            buffer.write(QUOTE);
+            first = false;
+        }
+        if (code != null) {
+            first = separate(buffer, first);
+            buffer.write(CODE);
+            buffer.write(code.toString(), StandardCharsets.UTF_8);
+        }
+        return first;
+    }
+
+    private static boolean separate(final DataBuffer buffer, final boolean first) {
+        if (!first) {
+            buffer.write(COMMA);
+        }
+        return false;
+    }
+
+    private static void writeString(final DataBuffer buffer, final String value) {
+        if (value == null) {
+            buffer.write("null", StandardCharsets.UTF_8);
+        } else {
+            buffer.write(QUOTE);
+            writeEscaped(buffer, value);
+            buffer.write(QUOTE);
+        }
+    }
+
+    private static void writeEscaped(final DataBuffer buffer, final String value) {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                if (i > start) {
+                    buffer.write(value.subSequence(start, i), StandardCharsets.UTF_8);
+                }
+                buffer.write(escape(c), StandardCharsets.UTF_8);
+                start = i + 1;
+            }
+        }
+        if (start < value.length()) {
+            buffer.write(value.subSequence(start, value.length()), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String escape(final char c) {
+        switch (c) {
+            case '"':
+                return "\\\"";
+            case '\\':
+                return "\\\\";
+            case '\n':
+                return "\\n";
+            case '\r':
+                return "\\r";
+            case '\t':
+                return "\\t";
+            case '\b':
+                return "\\b";
+            case '\f':
+                return "\\f";
+            default:
+                return String.format("\\u%04X", (int) c);
+        }
+    }
+
+    private static byte[] bytes(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.rest;
+
+import io.jrb.labs.common.entity.EntityTimestamp;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+
+/**
+ * Answers conditional GETs from an entity's GUID and modification time. Freshness is checked against a cheap
+ * {@link EntityTimestamp} lookup first, and the full body is only loaded and serialized when the client's
+ * {@code If-None-Match} or {@code If-Modified-Since} no longer matches.
+ */
+public final class ConditionalGetSupport {
+
+    private ConditionalGetSupport() {
+    }
+
+    /**
+     * Builds a strong ETag that changes whenever the entity's modification time does.
+     */
+    public static String etag(final EntityTimestamp timestamp) {
+        final Instant modifiedOn = timestamp.getModifiedOn();
+        return (modifiedOn != null)
+                ? format("\"%s-%x.%x\"", timestamp.getGuid(), modifiedOn.getEpochSecond(), modifiedOn.getNano())
+                : format("\"%s\"", timestamp.getGuid());
+    }
+
+    /**
+     * Answers a functional-endpoint GET with 304 when the client's copy is current, or 200 with the loaded body.
+     */
+    public static <T> Mono<ServerResponse> conditionalGet(
+            final ServerRequest request,
+            final Mono<? extends EntityTimestamp> freshness,
+            final Function<? super EntityTimestamp, Mono<T>> bodyLoader
+    ) {
+        return freshness.flatMap(timestamp -> {
+            final String etag = etag(timestamp);
+            final Instant lastModified = lastModified(timestamp);
+            final Mono<ServerResponse> notModified = (lastModified != null)
+                    ? request.checkNotModified(lastModified, etag)
+                    : request.checkNotModified(etag);
+            return notModified.switchIfEmpty(Mono.defer(() -> bodyLoader.apply(timestamp)
+                    .flatMap(body -> {
+                        final ServerResponse.BodyBuilder ok = ServerResponse.ok()
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .eTag(etag);
+                        if (lastModified != null) {
+                            ok.lastModified(lastModified);
+                        }
+                        return ok.bodyValue(body);
+                    })));
+        });
+    }
+
+    /**
+     * Answers an annotated-controller GET with 304 when the client's copy is current, or 200 with the loaded body.
+     */
+    public static <T> Mono<ResponseEntity<T>> conditionalGet(
+            final ServerWebExchange exchange,
+            final Mono<? extends EntityTimestamp> freshness,
+            final Function<? super EntityTimestamp, Mono<T>> bodyLoader
+    ) {
+        return freshness.flatMap(timestamp -> {
+            final String etag = etag(timestamp);
+            final Instant lastModified = lastModified(timestamp);
+            final boolean notModified = (lastModified != null)
+                    ? exchange.checkNotModified(etag, lastModified)
+                    : exchange.checkNotModified(etag);
+            if (notModified) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).<T>build());
+            }
+            return bodyLoader.apply(timestamp).map(body -> {
+                final ResponseEntity.BodyBuilder ok = ResponseEntity.ok().eTag(etag);
+                if (lastModified != null) {
+                    ok.lastModified(lastModified);
+                }
+                return ok.body(body);
+            });
+        });
+    }
+
+    private static Instant lastModified(final EntityTimestamp timestamp) {
+        final Instant modifiedOn = timestamp.getModifiedOn();
+        return (modifiedOn != null) ? modifiedOn.truncatedTo(ChronoUnit.SECONDS) : null;
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.rest;
+
+import io.jrb.labs.common.service.crud.CrudMetricsReader;
+import io.jrb.labs.common.service.crud.CrudMetricsSnapshot;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Exposes CRUD metric snapshots over WebFlux, optionally filtered by an {@code entityType} query parameter.
+ */
+public class CrudMetricsHandler {
+
+    private final CrudMetricsReader metricsReader;
+
+    public CrudMetricsHandler(final CrudMetricsReader metricsReader) {
+        this.metricsReader = metricsReader;
+    }
+
+    public RouterFunction<ServerResponse> route(final String path) {
+        return RouterFunctions.route().GET(path, this::handle).build();
+    }
+
+    public Mono<ServerResponse> handle(final ServerRequest request) {
+        final List<CrudMetricsSnapshot> snapshots = request.queryParam("entityType")
+                .map(metricsReader::snapshot)
+                .orElseGet(metricsReader::snapshot);
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(snapshots);
+    }
+
+}
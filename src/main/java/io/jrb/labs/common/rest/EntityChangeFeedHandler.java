@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.rest;
+
+import io.jrb.labs.common.entity.Entity;
+import io.jrb.labs.common.event.EntityChangeEvent;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Streams entity change events to WebFlux clients as server-sent events, with periodic heartbeat comments to keep
+ * idle connections open.
+ *
+ * @param <E> the entity type
+ */
+public class EntityChangeFeedHandler<E extends Entity> {
+
+    private final Supplier<Flux<EntityChangeEvent<E>>> changeEvents;
+
+    private final Duration heartbeatInterval;
+
+    public EntityChangeFeedHandler(
+            final Supplier<Flux<EntityChangeEvent<E>>> changeEvents,
+            final Duration heartbeatInterval
+    ) {
+        this.changeEvents = changeEvents;
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    public RouterFunction<ServerResponse> route(final String path) {
+        return RouterFunctions.route().GET(path, this::handle).build();
+    }
+
+    public Mono<ServerResponse> handle(final ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(toServerSentEvents(changeEvents.get()),
+                        new ParameterizedTypeReference<ServerSentEvent<EntityChangeEvent<E>>>() {});
+    }
+
+    public Flux<ServerSentEvent<EntityChangeEvent<E>>> toServerSentEvents(final Flux<EntityChangeEvent<E>> events) {
+        return events.publish(shared -> Flux.merge(
+                shared.map(this::toServerSentEvent),
+                Flux.interval(heartbeatInterval)
+                        .map(tick -> ServerSentEvent.<EntityChangeEvent<E>>builder().comment("heartbeat").build())
+                        .takeUntilOther(shared.ignoreElements())
+        ));
+    }
+
+    private ServerSentEvent<EntityChangeEvent<E>> toServerSentEvent(final EntityChangeEvent<E> event) {
+        return ServerSentEvent.builder(event)
+                .id(event.getGuid().toString())
+                .event(event.getChangeType().name().toLowerCase(Locale.ROOT))
+                .build();
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.rest;
+
+import io.jrb.labs.common.resource.ErrorResponse;
+import io.jrb.labs.common.resource.ErrorResponseWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebExceptionHandler;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes errors raised anywhere in a WebFlux pipeline as {@link ErrorResponse} JSON, encoding directly into the
+ * response's (pooled) buffers via {@link ErrorResponseWriter}. Statuses and messages come from the mapping shared
+ * with {@link GlobalErrorHandler}; ordered ahead of Spring Boot's default error handler at {@code -1}. Server errors
+ * are logged at ERROR with their stack trace, and client errors at DEBUG.
+ */
+@Slf4j
+@Component
+@Order(-2)
+public class ErrorResponseWebExceptionHandler implements WebExceptionHandler {
+
+    private final ErrorResponseWriter writer = new ErrorResponseWriter();
+
+    @Override
+    public Mono<Void> handle(final ServerWebExchange exchange, final Throwable t) {
+        final ServerHttpResponse response = exchange.getResponse();
+        if (response.isCommitted()) {
+            return Mono.error(t);
+        }
+
+        final ErrorResponse body = ErrorResponse.build(
+                GlobalErrorHandler.resolveStatus(t),
+                GlobalErrorHandler.resolveMessage(t)
+        );
+        if (body.getStatus().is5xxServerError()) {
+            log.error("request {} {} failed with {}", exchange.getRequest().getMethod(),
+                    exchange.getRequest().getPath(), body.getStatus(), t);
+        } else {
+            log.debug("request {} {} rejected with {}: {}", exchange.getRequest().getMethod(),
+                    exchange.getRequest().getPath(), body.getStatus(), body.getMessage());
+        }
+        response.setStatusCode(body.getStatus());
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.fromSupplier(() -> writer.write(body, response.bufferFactory())));
+    }
+
+}
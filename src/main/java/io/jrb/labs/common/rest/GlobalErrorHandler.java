@@ -23,22 +23,71 @@
  */
 package io.jrb.labs.common.rest;
 
+import io.jrb.labs.common.resource.ErrorResponse;
 import io.jrb.labs.common.resource.ErrorResponseEntity;
+import io.jrb.labs.common.service.crud.ConcurrencyLimitExceededException;
+import io.jrb.labs.common.service.crud.EntityConflictException;
 import io.jrb.labs.common.service.crud.EntityNotFoundException;
+import io.jrb.labs.common.service.crud.OperationTimeoutException;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
 
+/**
+ * Maps exceptions raised by annotated controllers to {@link ErrorResponseEntity} bodies. {@link #resolveStatus} and
+ * {@link #resolveMessage} are the single exception mapping, shared with {@link ErrorResponseWebExceptionHandler}.
+ */
 @ControllerAdvice
 public class GlobalErrorHandler {
 
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ErrorResponseEntity handleConcurrencyLimitExceededException(final ConcurrencyLimitExceededException e) {
+        return toResponseEntity(e);
+    }
+
+    @ExceptionHandler(EntityConflictException.class)
+    public ErrorResponseEntity handleEntityConflictException(final EntityConflictException e) {
+        return toResponseEntity(e);
+    }
+
     @ExceptionHandler(EntityNotFoundException.class)
     public ErrorResponseEntity handleEntityNotFoundException(final EntityNotFoundException e) {
-        return ErrorResponseEntity.notFound(e.getMessage());
+        return toResponseEntity(e);
+    }
+
+    @ExceptionHandler(OperationTimeoutException.class)
+    public ErrorResponseEntity handleOperationTimeoutException(final OperationTimeoutException e) {
+        return toResponseEntity(e);
     }
 
     @ExceptionHandler(Throwable.class)
     public ErrorResponseEntity handleThrowable(final Throwable t) {
-        return ErrorResponseEntity.serverError(t.getMessage());
+        return toResponseEntity(t);
+    }
+
+    public static HttpStatus resolveStatus(final Throwable t) {
+        if (t instanceof EntityNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        } else if (t instanceof EntityConflictException) {
+            return HttpStatus.CONFLICT;
+        } else if (t instanceof ConcurrencyLimitExceededException) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        } else if (t instanceof OperationTimeoutException) {
+            return HttpStatus.GATEWAY_TIMEOUT;
+        } else if (t instanceof ResponseStatusException) {
+            return ((ResponseStatusException) t).getStatus();
+        } else {
+            return HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+    }
+
+    public static String resolveMessage(final Throwable t) {
+        return (t instanceof ResponseStatusException) ? ((ResponseStatusException) t).getReason() : t.getMessage();
+    }
+
+    private static ErrorResponseEntity toResponseEntity(final Throwable t) {
+        return new ErrorResponseEntity(ErrorResponse.build(resolveStatus(t), resolveMessage(t)));
     }
 
 }
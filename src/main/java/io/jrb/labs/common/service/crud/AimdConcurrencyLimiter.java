@@ -0,0 +1,185 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the in-flight requests of one operation with additive-increase/multiplicative-decrease: the limit grows by
+ * one for each fast successful completion while it is being used, and shrinks by the backoff ratio when a request
+ * takes longer than the latency threshold (which includes timeouts). Only requests admitted after the last decrease
+ * can shrink it again, so one latency window backs off at most once; errors and cancellations otherwise leave it
+ * unchanged. Streams are measured per element (the longest wait for the next signal), not by their total duration.
+ * Requests over the limit are rejected immediately.
+ */
+class AimdConcurrencyLimiter {
+
+    private final String entityType;
+
+    private final CrudOperation operation;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long latencyThresholdNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private volatile double limit;
+
+    private long lastDecreaseNanos = System.nanoTime();
+
+    AimdConcurrencyLimiter(
+            final String entityType,
+            final CrudOperation operation,
+            final int initialLimit,
+            final int minLimit,
+            final int maxLimit,
+            final double backoffRatio,
+            final Duration latencyThreshold
+    ) {
+        this.entityType = entityType;
+        this.operation = operation;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    <T> Mono<T> limit(final Mono<T> source) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                return Mono.error(new ConcurrencyLimitExceededException(entityType, operation, getLimit()));
+            }
+            final long start = System.nanoTime();
+            final AtomicBoolean released = new AtomicBoolean();
+            return source
+                    .doOnEach(signal -> {
+                        if (signal.isOnComplete() || signal.isOnError()) {
+                            release(released, signal.getType(), start, System.nanoTime() - start);
+                        }
+                    })
+                    .doOnCancel(() -> release(released, SignalType.CANCEL, start, System.nanoTime() - start));
+        });
+    }
+
+    <T> Flux<T> limit(final Flux<T> source) {
+        return Flux.defer(() -> {
+            if (!tryAcquire()) {
+                return Flux.error(new ConcurrencyLimitExceededException(entityType, operation, getLimit()));
+            }
+            final long start = System.nanoTime();
+            final AtomicBoolean released = new AtomicBoolean();
+            final AtomicLong lastSignal = new AtomicLong(start);
+            final AtomicLong maxGap = new AtomicLong();
+            return source
+                    .doOnEach(signal -> {
+                        final long gap = recordGap(lastSignal, maxGap);
+                        if (signal.isOnComplete() || signal.isOnError()) {
+                            release(released, signal.getType(), start, gap);
+                        }
+                    })
+                    .doOnCancel(() -> release(
+                            released, SignalType.CANCEL, start, recordGap(lastSignal, maxGap)
+                    ));
+        });
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    ConcurrencyLimitSnapshot snapshot() {
+        return ConcurrencyLimitSnapshot.builder()
+                .entityType(entityType)
+                .operation(operation)
+                .limit(getLimit())
+                .inFlight(getInFlight())
+                .rejectedCount(getRejectedCount())
+                .build();
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= getLimit()) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(
+            final AtomicBoolean released, final SignalType signal, final long start, final long latencyNanos
+    ) {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        final int current = inFlight.getAndDecrement();
+        if (signal == SignalType.CANCEL) {
+            return;
+        }
+        synchronized (this) {
+            if (latencyNanos > latencyThresholdNanos) {
+                if (start - lastDecreaseNanos >= 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = System.nanoTime();
+                }
+            } else if (signal == SignalType.ON_COMPLETE && current * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    private static long recordGap(final AtomicLong lastSignal, final AtomicLong maxGap) {
+        final long now = System.nanoTime();
+        final long gap = now - lastSignal.getAndSet(now);
+        return maxGap.accumulateAndGet(gap, Math::max);
+    }
+
+}
@@ -0,0 +1,303 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Records per-operation latency, throughput, error and in-flight metrics for a single entity type. Gauges and
+ * function counters are registered once per registry against a shared holder, so several services of the same
+ * entity type report the sum of their values instead of whichever registered first.
+ */
+public class CrudMetrics {
+
+    public static final String OPERATION_TIMER = "crud.operation";
+    public static final String OPERATION_ERRORS = "crud.operation.errors";
+    public static final String OPERATION_ACTIVE = "crud.operation.active";
+    public static final String FIND_COALESCED = "crud.find.coalesced";
+    public static final String FIND_IN_FLIGHT = "crud.find.inflight";
+    public static final String UPDATE_PENDING = "crud.update.pending";
+    public static final String CHANGES_DROPPED = "crud.changes.dropped";
+    public static final String CONCURRENCY_LIMIT = "crud.concurrency.limit";
+    public static final String CONCURRENCY_REJECTED = "crud.concurrency.rejected";
+    public static final String HEDGE_FIRED = "crud.hedge.fired";
+    public static final String HEDGE_WON = "crud.hedge.won";
+    public static final String HEDGE_DELAY = "crud.hedge.delay";
+
+    public static final String TAG_ENTITY_TYPE = "entityType";
+    public static final String TAG_OPERATION = "operation";
+    public static final String TAG_EXCEPTION = "exception";
+
+    private static final MeterRegistry DEFAULT_REGISTRY = new SimpleMeterRegistry();
+
+    private static final Map<MeterRegistry, Map<List<Object>, MeterSources>> SOURCES =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final MeterRegistry registry;
+
+    private final Clock clock;
+
+    private final String entityType;
+
+    private final Map<CrudOperation, OperationMeters> meters = new EnumMap<>(CrudOperation.class);
+
+    public CrudMetrics(final MeterRegistry registry, final String entityType) {
+        this.registry = registry;
+        this.clock = registry.config().clock();
+        this.entityType = entityType;
+        for (final CrudOperation operation : CrudOperation.values()) {
+            meters.put(operation, new OperationMeters(operation));
+        }
+    }
+
+    /**
+     * Returns the in-process registry used when no registry has been configured.
+     */
+    public static MeterRegistry defaultRegistry() {
+        return DEFAULT_REGISTRY;
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    public <T> void bindCounter(final String name, final T source, final ToDoubleFunction<T> fnCount) {
+        bindCounter(name, Tags.of(TAG_ENTITY_TYPE, entityType), source, fnCount);
+    }
+
+    public <T> void bindGauge(final String name, final T source, final ToDoubleFunction<T> fnValue) {
+        bindGauge(name, Tags.of(TAG_ENTITY_TYPE, entityType), source, fnValue);
+    }
+
+    public <T> void bindCounter(
+            final String name, final CrudOperation operation, final T source, final ToDoubleFunction<T> fnCount
+    ) {
+        bindCounter(name, operationTags(operation), source, fnCount);
+    }
+
+    public <T> void bindGauge(
+            final String name, final CrudOperation operation, final T source, final ToDoubleFunction<T> fnValue
+    ) {
+        bindGauge(name, operationTags(operation), source, fnValue);
+    }
+
+    public <T> Mono<T> record(final CrudOperation operation, final Mono<T> source) {
+        final OperationMeters operationMeters = meters.get(operation);
+        return Mono.defer(() -> {
+            final long start = operationMeters.start();
+            return source
+                    .doOnError(operationMeters::error)
+                    .doFinally(signal -> operationMeters.stop(start));
+        });
+    }
+
+    public <T> Flux<T> record(final CrudOperation operation, final Flux<T> source) {
+        final OperationMeters operationMeters = meters.get(operation);
+        return Flux.defer(() -> {
+            final long start = operationMeters.start();
+            return source
+                    .doOnError(operationMeters::error)
+                    .doFinally(signal -> operationMeters.stop(start));
+        });
+    }
+
+    public <T> T record(final CrudOperation operation, final Supplier<T> source) {
+        final OperationMeters operationMeters = meters.get(operation);
+        final long start = operationMeters.start();
+        try {
+            return source.get();
+        } catch (final RuntimeException e) {
+            operationMeters.error(e);
+            throw e;
+        } finally {
+            operationMeters.stop(start);
+        }
+    }
+
+    /**
+     * Binds a function counter that reports the sum of every source bound under the same name and tags.
+     */
+    public static <T> void bindCounter(
+            final MeterRegistry registry,
+            final String name,
+            final Tags tags,
+            final T source,
+            final ToDoubleFunction<T> fnCount
+    ) {
+        FunctionCounter.builder(name, sources(registry, name, tags).add(source, fnCount), MeterSources::sum)
+                .tags(tags)
+                .register(registry);
+    }
+
+    /**
+     * Binds a gauge that reports the sum of every source bound under the same name and tags.
+     */
+    public static <T> void bindGauge(
+            final MeterRegistry registry,
+            final String name,
+            final Tags tags,
+            final T source,
+            final ToDoubleFunction<T> fnValue
+    ) {
+        Gauge.builder(name, sources(registry, name, tags).add(source, fnValue), MeterSources::sum)
+                .tags(tags)
+                .register(registry);
+    }
+
+    private <T> void bindCounter(
+            final String name, final Tags tags, final T source, final ToDoubleFunction<T> fnCount
+    ) {
+        bindCounter(registry, name, tags, source, fnCount);
+    }
+
+    private <T> void bindGauge(final String name, final Tags tags, final T source, final ToDoubleFunction<T> fnValue) {
+        bindGauge(registry, name, tags, source, fnValue);
+    }
+
+    private static MeterSources sources(final MeterRegistry registry, final String name, final Tags tags) {
+        synchronized (SOURCES) {
+            return SOURCES.computeIfAbsent(registry, r -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(List.of(name, tags), key -> new MeterSources());
+        }
+    }
+
+    private Tags operationTags(final CrudOperation operation) {
+        return Tags.of(TAG_ENTITY_TYPE, entityType, TAG_OPERATION, operation.tagValue());
+    }
+
+    /**
+     * Sums the values of every live source bound to one meter. Sources are held weakly, like Micrometer's own
+     * gauge state, so a discarded service drops out of the sum.
+     */
+    private static final class MeterSources {
+
+        private final List<MeterSource<?>> sources = new CopyOnWriteArrayList<>();
+
+        <T> MeterSources add(final T source, final ToDoubleFunction<T> fnValue) {
+            sources.add(new MeterSource<>(source, fnValue));
+            return this;
+        }
+
+        double sum() {
+            double sum = 0;
+            boolean live = false;
+            for (final MeterSource<?> source : sources) {
+                final Double value = source.value();
+                if (value == null) {
+                    sources.remove(source);
+                } else {
+                    sum += value;
+                    live = true;
+                }
+            }
+            return live ? sum : Double.NaN;
+        }
+
+    }
+
+    private static final class MeterSource<T> {
+
+        private final WeakReference<T> source;
+
+        private final ToDoubleFunction<T> fnValue;
+
+        private MeterSource(final T source, final ToDoubleFunction<T> fnValue) {
+            this.source = new WeakReference<>(source);
+            this.fnValue = fnValue;
+        }
+
+        /**
+         * Returns the current value, or null once the source has been garbage collected.
+         */
+        Double value() {
+            final T value = source.get();
+            return (value != null) ? fnValue.applyAsDouble(value) : null;
+        }
+
+    }
+
+    private class OperationMeters {
+
+        private final CrudOperation operation;
+
+        private final Timer timer;
+
+        private final AtomicInteger active = new AtomicInteger();
+
+        private final Map<Class<?>, Counter> errors = new ConcurrentHashMap<>();
+
+        OperationMeters(final CrudOperation operation) {
+            this.operation = operation;
+            this.timer = Timer.builder(OPERATION_TIMER)
+                    .tag(TAG_ENTITY_TYPE, entityType)
+                    .tag(TAG_OPERATION, operation.tagValue())
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .register(registry);
+            bindGauge(OPERATION_ACTIVE, operationTags(operation), active, AtomicInteger::get);
+        }
+
+        long start() {
+            active.incrementAndGet();
+            return clock.monotonicTime();
+        }
+
+        void stop(final long start) {
+            timer.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+            active.decrementAndGet();
+        }
+
+        void error(final Throwable t) {
+            errors.computeIfAbsent(t.getClass(), type -> Counter.builder(OPERATION_ERRORS)
+                    .tag(TAG_ENTITY_TYPE, entityType)
+                    .tag(TAG_OPERATION, operation.tagValue())
+                    .tag(TAG_EXCEPTION, type.getSimpleName())
+                    .register(registry)
+            ).increment();
+        }
+
+    }
+
+}
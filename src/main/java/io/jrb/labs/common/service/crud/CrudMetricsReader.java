@@ -0,0 +1,130 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static io.jrb.labs.common.service.crud.CrudMetrics.OPERATION_ACTIVE;
+import static io.jrb.labs.common.service.crud.CrudMetrics.OPERATION_ERRORS;
+import static io.jrb.labs.common.service.crud.CrudMetrics.OPERATION_TIMER;
+import static io.jrb.labs.common.service.crud.CrudMetrics.TAG_ENTITY_TYPE;
+import static io.jrb.labs.common.service.crud.CrudMetrics.TAG_EXCEPTION;
+import static io.jrb.labs.common.service.crud.CrudMetrics.TAG_OPERATION;
+
+/**
+ * Reads snapshots of the CRUD metrics held in a meter registry. Throughput is computed over the interval since
+ * the previous snapshot of the same operation (or since the reader was created).
+ */
+public class CrudMetricsReader {
+
+    private final MeterRegistry registry;
+
+    private final long createdAt;
+
+    private final Map<String, long[]> previousCounts = new ConcurrentHashMap<>();
+
+    public CrudMetricsReader(final MeterRegistry registry) {
+        this.registry = registry;
+        this.createdAt = registry.config().clock().monotonicTime();
+    }
+
+    public List<CrudMetricsSnapshot> snapshot() {
+        return registry.find(OPERATION_TIMER).timers().stream()
+                .map(this::toSnapshot)
+                .collect(Collectors.toList());
+    }
+
+    public List<CrudMetricsSnapshot> snapshot(final String entityType) {
+        return registry.find(OPERATION_TIMER).tag(TAG_ENTITY_TYPE, entityType).timers().stream()
+                .map(this::toSnapshot)
+                .collect(Collectors.toList());
+    }
+
+    private CrudMetricsSnapshot toSnapshot(final Timer timer) {
+        final String entityType = timer.getId().getTag(TAG_ENTITY_TYPE);
+        final String operation = timer.getId().getTag(TAG_OPERATION);
+        final HistogramSnapshot histogram = timer.takeSnapshot();
+
+        final CrudMetricsSnapshot.CrudMetricsSnapshotBuilder builder = CrudMetricsSnapshot.builder()
+                .entityType(entityType)
+                .operation(operation)
+                .count(histogram.count())
+                .throughputPerSecond(throughput(entityType + "/" + operation, histogram.count()))
+                .meanMillis(histogram.mean(TimeUnit.MILLISECONDS))
+                .maxMillis(histogram.max(TimeUnit.MILLISECONDS))
+                .active(active(entityType, operation));
+
+        for (final ValueAtPercentile percentile : histogram.percentileValues()) {
+            final double value = percentile.value(TimeUnit.MILLISECONDS);
+            if (percentile.percentile() == 0.5) {
+                builder.p50Millis(value);
+            } else if (percentile.percentile() == 0.99) {
+                builder.p99Millis(value);
+            } else if (percentile.percentile() == 0.999) {
+                builder.p999Millis(value);
+            }
+        }
+
+        for (final Counter counter : registry.find(OPERATION_ERRORS)
+                .tag(TAG_ENTITY_TYPE, entityType)
+                .tag(TAG_OPERATION, operation)
+                .counters()) {
+            builder.error(counter.getId().getTag(TAG_EXCEPTION), (long) counter.count());
+        }
+
+        return builder.build();
+    }
+
+    private long active(final String entityType, final String operation) {
+        return Optional.ofNullable(registry.find(OPERATION_ACTIVE)
+                .tag(TAG_ENTITY_TYPE, entityType)
+                .tag(TAG_OPERATION, operation)
+                .gauge())
+                .map(Gauge::value)
+                .map(Double::longValue)
+                .orElse(0L);
+    }
+
+    private double throughput(final String key, final long count) {
+        final long now = registry.config().clock().monotonicTime();
+        final long[] previous = previousCounts.put(key, new long[]{ now, count });
+        final long since = (previous != null) ? previous[0] : createdAt;
+        final long sinceCount = (previous != null) ? previous[1] : 0L;
+        final double seconds = (now - since) / 1e9;
+        return (seconds > 0) ? (count - sinceCount) / seconds : 0.0;
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import java.util.Locale;
+
+/**
+ * Enumerates the operations performed by a {@link CrudServiceSupport}. Chunks of bulk operations are recorded under
+ * their own {@code _BATCH} operation, so their latencies do not skew the single-entity percentiles.
+ */
+public enum CrudOperation {
+
+    CREATE,
+    CREATE_BATCH,
+    DELETE,
+    DELETE_BATCH,
+    FIND,
+    FIND_BATCH,
+    PATCH,
+    PATCH_BATCH,
+    RETRIEVE,
+    UPDATE,
+    UPSERT,
+    UPSERT_BATCH;
+
+    public String tagValue() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import io.jrb.labs.common.cache.EntityCache;
+import io.jrb.labs.common.entity.Entity;
+import io.jrb.labs.common.entity.GuidGenerator;
+import io.jrb.labs.common.event.ChangeFeedBackpressure;
+import io.jrb.labs.common.repository.TombstoneStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Defines the optional tuning knobs for a {@link CrudServiceSupport}.
+ *
+ * @param <E> the entity type
+ */
+@Value
+@Builder(toBuilder = true)
+public class CrudServiceConfig<E extends Entity> {
+
+    @Builder.Default
+    Clock clock = Clock.systemUTC();
+
+    @Builder.Default
+    GuidGenerator guidGenerator = GuidGenerator.random();
+
+    @Builder.Default
+    EntityCache<E> entityCache = EntityCache.disabled();
+
+    @Builder.Default
+    boolean coalesceFinds = false;
+
+    @Builder.Default
+    int createBatchSize = 100;
+
+    @Builder.Default
+    int deleteBatchSize = 500;
+
+    @Builder.Default
+    int findBatchSize = 500;
+
+    @Builder.Default
+    int findConcurrency = 4;
+
+    @Builder.Default
+    int retrievePageSize = 500;
+
+    @Builder.Default
+    int upsertConcurrency = 4;
+
+    @Builder.Default
+    int upsertBatchSize = 100;
+
+    @Builder.Default
+    int patchBatchSize = 500;
+
+    @Builder.Default
+    int patchParallelism = Runtime.getRuntime().availableProcessors();
+
+    @Builder.Default
+    int updateMaxRetries = 3;
+
+    @Builder.Default
+    Duration updateRetryMinBackoff = Duration.ofMillis(10);
+
+    @Builder.Default
+    Duration updateRetryMaxBackoff = Duration.ofMillis(250);
+
+    /**
+     * Enables write-behind updates when set: updates to the same entity within this window are folded together.
+     */
+    Duration writeBehindWindow;
+
+    @Builder.Default
+    int writeBehindMaxBatchSize = 500;
+
+    @Builder.Default
+    Duration writeBehindShutdownTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Enables adaptive (AIMD) concurrency limiting per operation when set, starting from this in-flight limit.
+     */
+    Integer concurrencyInitialLimit;
+
+    @Builder.Default
+    int concurrencyMinLimit = 1;
+
+    @Builder.Default
+    int concurrencyMaxLimit = 200;
+
+    @Builder.Default
+    double concurrencyBackoffRatio = 0.9;
+
+    @Builder.Default
+    Duration concurrencyLatencyThreshold = Duration.ofMillis(250);
+
+    /**
+     * Records a tombstone for every delete when set, so deletions can be read incrementally.
+     */
+    TombstoneStore tombstoneStore;
+
+    @Builder.Default
+    ChangeFeedBackpressure changeFeedBackpressure = ChangeFeedBackpressure.BUFFER;
+
+    @Builder.Default
+    int changeFeedBufferSize = 256;
+
+    /**
+     * Attaches the changed entity to each published change event when set.
+     */
+    @Builder.Default
+    boolean changeFeedIncludeEntity = false;
+
+    /**
+     * Fails an operation with an {@link OperationTimeoutException} when it runs longer than its configured timeout.
+     * Streaming operations time out when no element arrives within the timeout.
+     */
+    @Singular
+    Map<CrudOperation, Duration> operationTimeouts;
+
+    /**
+     * Sends a second, hedged lookup when a find by GUID has not answered within the recent p95 repository latency.
+     */
+    @Builder.Default
+    boolean hedgeFinds = false;
+
+    @Builder.Default
+    double hedgePercentile = 0.95;
+
+    @Builder.Default
+    Duration hedgeMinDelay = Duration.ofMillis(5);
+
+    @Builder.Default
+    MeterRegistry meterRegistry = CrudMetrics.defaultRegistry();
+
+    public static <E extends Entity> CrudServiceConfig<E> defaults() {
+        return CrudServiceConfig.<E>builder().build();
+    }
+
+}
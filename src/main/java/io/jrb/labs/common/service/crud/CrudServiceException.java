@@ -23,14 +23,50 @@
  */
 package io.jrb.labs.common.service.crud;
 
+/**
+ * Provides a base for all CRUD service exceptions. Messages built from a format are only rendered when first
+ * requested, and stack traces are skipped entirely when the {@value #STACKLESS_PROPERTY} system property is set to
+ * {@code true}, so that expected failures such as a missing entity cost little more than an allocation.
+ */
 public class CrudServiceException extends RuntimeException {
 
+    public static final String STACKLESS_PROPERTY = "io.jrb.labs.crud.stacklessExceptions";
+
+    private static final boolean STACKLESS = Boolean.getBoolean(STACKLESS_PROPERTY);
+
+    private final String format;
+
+    private final Object[] args;
+
+    private String message;
+
     public CrudServiceException(final String message) {
-        super(message);
+        this(message, null);
     }
 
     public CrudServiceException(final String message, final Throwable cause) {
-        super(message, cause);
+        super(message, cause, true, !STACKLESS);
+        this.format = null;
+        this.args = null;
+        this.message = message;
+    }
+
+    protected CrudServiceException(final Throwable cause, final String format, final Object... args) {
+        super(null, cause, true, !STACKLESS);
+        this.format = format;
+        this.args = args;
+    }
+
+    public static boolean isStackless() {
+        return STACKLESS;
+    }
+
+    @Override
+    public String getMessage() {
+        if (message == null && format != null) {
+            message = String.format(format, args);
+        }
+        return message;
     }
 
 }
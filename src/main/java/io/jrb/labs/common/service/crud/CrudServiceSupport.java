@@ -23,96 +23,862 @@
  */
 package io.jrb.labs.common.service.crud;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.fge.jsonpatch.JsonPatch;
+import io.jrb.labs.common.cache.EntityCache;
+import io.jrb.labs.common.cache.SingleFlight;
 import io.jrb.labs.common.entity.Entity;
 import io.jrb.labs.common.entity.EntityBuilder;
+import io.jrb.labs.common.entity.EntityProjection;
+import io.jrb.labs.common.entity.EntityTimestamp;
+import io.jrb.labs.common.entity.GuidGenerator;
+import io.jrb.labs.common.event.ChangeFeedBackpressure;
+import io.jrb.labs.common.event.EntityChangeEvent;
+import io.jrb.labs.common.event.EntityChangeFeed;
+import io.jrb.labs.common.patch.CompiledPatch;
+import io.jrb.labs.common.patch.JsonPatchEngine;
+import io.jrb.labs.common.repository.DeltaCursor;
+import io.jrb.labs.common.repository.EntityProjector;
 import io.jrb.labs.common.repository.EntityRepository;
+import io.jrb.labs.common.repository.Tombstone;
+import io.jrb.labs.common.repository.TombstoneStore;
 import org.reactivestreams.Publisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+import reactor.util.function.Tuple2;
+import reactor.util.retry.RetryBackoffSpec;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 public abstract class CrudServiceSupport<E extends Entity, EB extends EntityBuilder<E, EB>> {
 
     private final EntityRepository<E> entityRepository;
 
+    private final EntityCache<E> entityCache;
+
+    private final SingleFlight<UUID, E> findFlight;
+
     private final String entityType;
 
-    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    private final GuidGenerator guidGenerator;
+
+    private final int createBatchSize;
+
+    private final int deleteBatchSize;
+
+    private final int findBatchSize;
+
+    private final int findConcurrency;
+
+    private final int retrievePageSize;
+
+    private final int upsertConcurrency;
+
+    private final int upsertBatchSize;
+
+    private final int patchBatchSize;
+
+    private final int patchParallelism;
+
+    private final RetryBackoffSpec updateRetry;
+
+    private final WriteBehindUpdater<E> writeBehind;
+
+    private final Duration writeBehindShutdownTimeout;
+
+    private final JsonPatchEngine patchEngine;
+
+    private final EntityProjector projector = new EntityProjector();
+
+    private final CrudMetrics crudMetrics;
+
+    private final EntityChangeFeed<E> changeFeed;
+
+    private final TombstoneStore tombstoneStore;
+
+    private final Map<CrudOperation, AimdConcurrencyLimiter> concurrencyLimiters;
+
+    private final Map<CrudOperation, Duration> operationTimeouts;
+
+    private final LatencyTracker findLatency;
+
+    private final Duration hedgeMinDelay;
+
+    private final AtomicLong hedgesFired = new AtomicLong();
+
+    private final AtomicLong hedgesWon = new AtomicLong();
 
     public CrudServiceSupport(
             final Class<E> entityClass,
             final EntityRepository<E> entityRepository,
             final ObjectMapper objectMapper
+    ) {
+        this(entityClass, entityRepository, objectMapper, CrudServiceConfig.defaults());
+    }
+
+    public CrudServiceSupport(
+            final Class<E> entityClass,
+            final EntityRepository<E> entityRepository,
+            final ObjectMapper objectMapper,
+            final CrudServiceConfig<E> config
     ) {
         this.entityRepository = entityRepository;
-        this.objectMapper = objectMapper;
+        this.patchEngine = new JsonPatchEngine(objectMapper);
+        this.entityCache = config.getEntityCache();
+        this.clock = config.getClock();
+        this.guidGenerator = config.getGuidGenerator();
+        this.createBatchSize = config.getCreateBatchSize();
+        this.deleteBatchSize = config.getDeleteBatchSize();
+        this.findBatchSize = config.getFindBatchSize();
+        this.findConcurrency = config.getFindConcurrency();
+        this.retrievePageSize = config.getRetrievePageSize();
+        this.tombstoneStore = config.getTombstoneStore();
+        this.upsertConcurrency = config.getUpsertConcurrency();
+        this.upsertBatchSize = config.getUpsertBatchSize();
+        this.patchBatchSize = config.getPatchBatchSize();
+        this.patchParallelism = config.getPatchParallelism();
+        this.updateRetry = Retry.backoff(config.getUpdateMaxRetries(), config.getUpdateRetryMinBackoff())
+                .maxBackoff(config.getUpdateRetryMaxBackoff())
+                .filter(t -> t instanceof OptimisticLockingFailureException);
 
         this.entityType = entityClass.getSimpleName();
+        this.crudMetrics = new CrudMetrics(config.getMeterRegistry(), entityType);
+        this.changeFeed = new EntityChangeFeed<>(entityType, clock, config.getChangeFeedBackpressure(),
+                config.getChangeFeedBufferSize(), config.isChangeFeedIncludeEntity());
+        crudMetrics.bindCounter(CrudMetrics.CHANGES_DROPPED, changeFeed, EntityChangeFeed::droppedCount);
+
+        if (config.getConcurrencyInitialLimit() != null) {
+            this.concurrencyLimiters = new EnumMap<>(CrudOperation.class);
+            for (final CrudOperation operation : CrudOperation.values()) {
+                final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(entityType, operation,
+                        config.getConcurrencyInitialLimit(), config.getConcurrencyMinLimit(),
+                        config.getConcurrencyMaxLimit(), config.getConcurrencyBackoffRatio(),
+                        config.getConcurrencyLatencyThreshold());
+                crudMetrics.bindGauge(CrudMetrics.CONCURRENCY_LIMIT, operation, limiter,
+                        AimdConcurrencyLimiter::getLimit);
+                crudMetrics.bindCounter(CrudMetrics.CONCURRENCY_REJECTED, operation, limiter,
+                        AimdConcurrencyLimiter::getRejectedCount);
+                concurrencyLimiters.put(operation, limiter);
+            }
+        } else {
+            this.concurrencyLimiters = null;
+        }
+
+        this.operationTimeouts = config.getOperationTimeouts().isEmpty()
+                ? Collections.emptyMap()
+                : new EnumMap<>(config.getOperationTimeouts());
+
+        this.hedgeMinDelay = config.getHedgeMinDelay();
+        if (config.isHedgeFinds()) {
+            this.findLatency = new LatencyTracker(config.getHedgePercentile(), 1024, 128);
+            crudMetrics.bindCounter(CrudMetrics.HEDGE_FIRED, hedgesFired, AtomicLong::get);
+            crudMetrics.bindCounter(CrudMetrics.HEDGE_WON, hedgesWon, AtomicLong::get);
+            crudMetrics.bindGauge(CrudMetrics.HEDGE_DELAY, findLatency,
+                    tracker -> TimeUnit.NANOSECONDS.toMillis(tracker.getPercentileNanos()));
+        } else {
+            this.findLatency = null;
+        }
+
+        if (config.isCoalesceFinds()) {
+            this.findFlight = new SingleFlight<>();
+            crudMetrics.bindCounter(CrudMetrics.FIND_COALESCED, findFlight, SingleFlight::getCoalescedCount);
+            crudMetrics.bindGauge(CrudMetrics.FIND_IN_FLIGHT, findFlight, SingleFlight::getInFlightCount);
+        } else {
+            this.findFlight = null;
+        }
+
+        this.writeBehindShutdownTimeout = config.getWriteBehindShutdownTimeout();
+        if (config.getWriteBehindWindow() != null) {
+            this.writeBehind = new WriteBehindUpdater<>(
+                    config.getWriteBehindWindow(),
+                    config.getWriteBehindMaxBatchSize(),
+                    Schedulers.parallel(),
+                    guid -> entityRepository.findByGuid(guid)
+                            .switchIfEmpty(entityNotFound(guid)),
+                    entityRepository::saveAll,
+                    this::saveUpdate
+            );
+            crudMetrics.bindGauge(CrudMetrics.UPDATE_PENDING, writeBehind, WriteBehindUpdater::pendingCount);
+        } else {
+            this.writeBehind = null;
+        }
     }
 
     protected <R> R applyPatch(
             final UUID guid, final JsonPatch patch, final R resource, final Class<R> resourceClass
     ) {
-        try {
-            final JsonNode patched = patch.apply(objectMapper.convertValue(resource, JsonNode.class));
-            return objectMapper.treeToValue(patched, resourceClass);
-        } catch (final Exception e) {
-            throw new PatchInvalidException(resourceClass.getSimpleName(), guid, e);
-        }
+        return crudMetrics.record(CrudOperation.PATCH, () -> {
+            try {
+                return patchEngine.apply(patch, resource, resourceClass);
+            } catch (final Exception e) {
+                throw new PatchInvalidException(resourceClass.getSimpleName(), guid, e);
+            }
+        });
+    }
+
+    /**
+     * Patches many entities in stages: each chunk is fetched with one query, patches are compiled once and applied
+     * on the parallel scheduler, and the patched entities are saved in one batch. Every input item yields a result
+     * in input order; an invalid patch or missing entity fails only its own item. Patches for the same GUID within
+     * a chunk are applied in sequence to the same entity.
+     *
+     * @param patches the GUID and patch pairs to apply
+     * @param fnToResource converts an entity into the resource the patches address
+     * @param resourceClass the resource class
+     * @param fnFromResource produces the update of an entity from its patched resource
+     * @param <R> the resource type
+     * @return the per-item outcomes
+     */
+    protected <R> Flux<CrudResult<E>> patchEntities(
+            final Flux<Tuple2<UUID, JsonPatch>> patches,
+            final Function<E, R> fnToResource,
+            final Class<R> resourceClass,
+            final BiFunction<E, R, EB> fnFromResource
+    ) {
+        return patches
+                .buffer(patchBatchSize)
+                .concatMap(chunk -> execute(CrudOperation.PATCH_BATCH,
+                        patchChunk(chunk, fnToResource, resourceClass, fnFromResource)));
     }
 
     protected Mono<E> createEntity(final EB entityBuilder) {
-        return Mono.defer(() -> {
-            final Instant timestamp = Instant.now();
-            final E entity = entityBuilder
-                    .guid(UUID.randomUUID())
-                    .createdOn(timestamp)
-                    .modifiedOn(timestamp)
-                    .build();
-            return entityRepository.save(entity)
-                    .onErrorResume(handleMonoError(t -> new CreateEntityException(entityType, t)));
-        });
+        return execute(CrudOperation.CREATE, Mono.defer(
+                () -> entityRepository.save(stampNewEntity(entityBuilder))
+                        .doOnNext(changeFeed::publishCreated)
+                        .onErrorResume(handleMonoError(t -> new CreateEntityException(entityType, t)))
+        ));
+    }
+
+    protected Flux<CrudResult<E>> createEntities(final Flux<EB> entityBuilders) {
+        return entityBuilders
+                .buffer(createBatchSize)
+                .concatMap(this::createChunk);
     }
 
     protected Mono<Void> deleteEntity(final UUID guid, final Function<E, Mono<Void>> fnDelete) {
-        return entityRepository.findByGuid(guid)
-                .switchIfEmpty(Mono.error(new EntityNotFoundException(entityType, guid)))
+        return execute(CrudOperation.DELETE, entityRepository.findByGuid(guid)
+                .switchIfEmpty(entityNotFound(guid))
                 .flatMap(fnDelete)
-                .onErrorResume(handleMonoError(t -> new DeleteEntityException(entityType, guid, t)));
+                .then(Mono.defer(() -> recordTombstones(Collections.singleton(guid))))
+                .doOnSuccess(v -> changeFeed.publishDeleted(guid))
+                .doFinally(signal -> entityCache.invalidate(guid))
+                .onErrorResume(handleMonoError(t -> new DeleteEntityException(entityType, guid, t))));
+    }
+
+    protected Mono<DeleteEntitiesResult> deleteEntities(final Flux<UUID> guids) {
+        return guids
+                .buffer(deleteBatchSize)
+                .concatMap(this::deleteChunk)
+                .collectList()
+                .map(DeleteEntitiesResult::combine);
     }
 
     protected Mono<E> findEntityByGuid(final UUID guid) {
-        return entityRepository.findByGuid(guid)
-                .switchIfEmpty(Mono.error(new EntityNotFoundException(entityType, guid)))
-                .onErrorResume(handleMonoError(t -> new FindEntityException(entityType, guid, t)));
+        return execute(CrudOperation.FIND, Mono.defer(() -> Mono.justOrEmpty(entityCache.get(guid)))
+                .switchIfEmpty(Mono.defer(() -> (findFlight != null)
+                        ? findFlight.execute(guid, this::loadEntityByGuid)
+                        : loadEntityByGuid(guid)))
+                .onErrorResume(handleMonoError(t -> new FindEntityException(entityType, guid, t))));
+    }
+
+    /**
+     * Finds many entities by GUID: cached entities are served directly, and the rest are read with bounded
+     * {@code IN} queries that run in parallel up to the configured concurrency. Results keep the request order with
+     * duplicate GUIDs collapsed to their first occurrence, and missing GUIDs are reported rather than raised.
+     */
+    protected Mono<FindEntitiesResult<E>> findEntitiesByGuids(final Collection<UUID> guids) {
+        return Mono.defer(() -> {
+            final long generation = entityCache.generation();
+            final List<UUID> requested = new ArrayList<>(new LinkedHashSet<>(guids));
+            final Map<UUID, E> found = new ConcurrentHashMap<>();
+            final List<UUID> uncached = new ArrayList<>();
+            for (final UUID guid : requested) {
+                final Optional<E> cached = entityCache.get(guid);
+                if (cached.isPresent()) {
+                    found.put(guid, cached.get());
+                } else {
+                    uncached.add(guid);
+                }
+            }
+            return Flux.fromIterable(uncached)
+                    .buffer(findBatchSize)
+                    .flatMap(chunk -> execute(CrudOperation.FIND_BATCH, entityRepository.findByGuidIn(chunk)),
+                            findConcurrency)
+                    .doOnNext(entity -> {
+                        entityCache.putIfUnchanged(entity, generation);
+                        found.put(entity.getGuid(), entity);
+                    })
+                    .then(Mono.fromSupplier(() -> FindEntitiesResult.of(requested, found)));
+        }).onErrorResume(handleMonoError(t -> new FindEntitiesException(entityType, t)));
+    }
+
+    /**
+     * Finds an entity by GUID as an interface or DTO projection, so only the projected properties are read. A cached
+     * entity is projected in place of a repository read.
+     */
+    protected <T> Mono<T> findEntityByGuid(final UUID guid, final Class<T> projection) {
+        return execute(CrudOperation.FIND, Mono.defer(() -> Mono.justOrEmpty(entityCache.get(guid)))
+                .map(entity -> projector.project(entity, projection))
+                .switchIfEmpty(Mono.defer(() -> entityRepository.findByGuid(guid, projection)))
+                .switchIfEmpty(entityNotFound(guid))
+                .onErrorResume(handleMonoError(t -> new FindEntityException(entityType, guid, t))));
+    }
+
+    /**
+     * Finds just the GUID and modification time of an entity, for conditional requests.
+     */
+    protected Mono<EntityTimestamp> findEntityTimestamp(final UUID guid) {
+        return findEntityByGuid(guid, EntityTimestamp.class);
     }
 
     protected Flux<E> retrieveEntities() {
-        return entityRepository.findAll()
-                .onErrorResume(handleFluxError(t -> new RetrieveEntitiesException(entityType, t)));
+        return streamEntities(retrievePageSize);
+    }
+
+    protected Mono<EntityPage<E>> retrieveEntities(final Long cursor, final int pageSize) {
+        return execute(CrudOperation.RETRIEVE, entityRepository.findPageAfter(cursor, pageSize)
+                .collectList()
+                .map(entities -> EntityPage.of(entities, pageSize))
+                .onErrorResume(handleMonoError(t -> new RetrieveEntitiesException(entityType, t))));
+    }
+
+    protected Flux<E> streamEntities(final int pageSize) {
+        return retrieveEntities(null, pageSize)
+                .expand(page -> page.hasNext() ? retrieveEntities(page.getNextCursor(), pageSize) : Mono.empty())
+                .concatMapIterable(EntityPage::getEntities, 1);
+    }
+
+    protected <T> Flux<T> retrieveEntities(final Long cursor, final int pageSize, final Class<T> projection) {
+        return execute(CrudOperation.RETRIEVE, entityRepository.findPageAfter(cursor, pageSize, projection)
+                .onErrorResume(handleFluxError(t -> new RetrieveEntitiesException(entityType, t))));
+    }
+
+    protected <P extends EntityProjection> Flux<P> streamEntities(final int pageSize, final Class<P> projection) {
+        return retrieveEntities(null, pageSize, projection).collectList()
+                .expand(page -> (page.isEmpty() || page.size() < pageSize)
+                        ? Mono.empty()
+                        : retrieveEntities(page.get(page.size() - 1).getId(), pageSize, projection).collectList())
+                .concatMapIterable(page -> page, 1);
+    }
+
+    /**
+     * Streams every entity modified at or after the given instant, in {@code (modifiedOn, id)} order. Readers can
+     * resume from {@link DeltaCursor#after} of the last entity they processed.
+     */
+    protected Flux<E> retrieveEntitiesModifiedSince(final Instant since) {
+        return retrieveEntitiesModifiedSince(DeltaCursor.since(since), retrievePageSize)
+                .expand(page -> page.hasNext()
+                        ? retrieveEntitiesModifiedSince(page.getNextCursor(), retrievePageSize)
+                        : Mono.empty())
+                .concatMapIterable(DeltaPage::getEntities, 1);
+    }
+
+    protected Mono<DeltaPage<E>> retrieveEntitiesModifiedSince(final DeltaCursor cursor, final int pageSize) {
+        return execute(CrudOperation.RETRIEVE, entityRepository.findModifiedAfter(cursor, pageSize)
+                .collectList()
+                .map(entities -> DeltaPage.of(entities, pageSize))
+                .onErrorResume(handleMonoError(t -> new RetrieveEntitiesException(entityType, t))));
+    }
+
+    /**
+     * Streams the tombstones of entities deleted at or after the given instant, in {@code deletedOn} order. Fails
+     * when no {@link TombstoneStore} is configured, since an empty result would silently leave replicas stale.
+     */
+    protected Flux<Tombstone> retrieveEntitiesDeletedSince(final Instant since) {
+        return execute(CrudOperation.RETRIEVE, Flux.defer(() -> (tombstoneStore != null)
+                ? tombstoneStore.findDeletedSince(entityType, since)
+                : Flux.<Tombstone>error(new IllegalStateException("Tombstones are not enabled for " + entityType)))
+                .onErrorResume(handleFluxError(t -> new RetrieveEntitiesException(entityType, t))));
     }
 
     protected Mono<E> updateEntity(final UUID guid, final Function<E, EB> fnUpdate) {
-        return entityRepository.findByGuid(guid)
-                .switchIfEmpty(Mono.error(new EntityNotFoundException(entityType, guid)))
-                .map(entity -> {
-                    final Instant timestamp = Instant.now();
-                    return fnUpdate.apply(entity)
-                            .id(entity.getId())
-                            .createdBy(entity.getCreatedBy())
-                            .createdOn(entity.getCreatedOn())
-                            .modifiedBy(entity.getModifiedBy())
-                            .modifiedOn(timestamp)
-                            .build();
-                })
+        final UnaryOperator<E> update = entity -> stampUpdatedEntity(entity, fnUpdate);
+        final Mono<E> updated = (writeBehind != null)
+                ? writeBehind.enqueue(guid, update)
+                : saveUpdate(guid, update);
+        return execute(CrudOperation.UPDATE, updated
+                .doOnNext(entityCache::put)
+                .doOnNext(changeFeed::publishUpdated)
+                .doOnError(t -> entityCache.invalidate(guid))
+                .onErrorResume(handleMonoError(t -> new UpdateEntityException(entityType, guid, t))));
+    }
+
+    /**
+     * Creates the entity with the given GUID if it does not exist, or otherwise updates it, in a single repository
+     * call. New entities are stamped as by {@link #createEntity} and existing ones as by {@link #updateEntity}.
+     */
+    protected Mono<E> createOrUpdateEntity(final UUID guid, final EB entityBuilder, final Function<E, EB> fnUpdate) {
+        return execute(CrudOperation.UPSERT, upsert(guid, entityBuilder, fnUpdate)
+                .doOnError(t -> entityCache.invalidate(guid))
+                .onErrorResume(handleMonoError(t -> new UpsertEntityException(entityType, guid, t))));
+    }
+
+    /**
+     * Applies a stream of upserts in chunks, reporting each outcome in input order. Each chunk costs one {@code IN}
+     * lookup and one batch save, and chunks run with bounded concurrency. The merge function derives the update of
+     * an existing entity from the incoming builder.
+     */
+    protected Flux<CrudResult<E>> createOrUpdateEntities(
+            final Flux<Tuple2<UUID, EB>> entityBuilders, final BiFunction<E, EB, EB> fnMerge
+    ) {
+        return entityBuilders
+                .buffer(upsertBatchSize)
+                .flatMapSequential(chunk -> upsertChunk(chunk, fnMerge), upsertConcurrency);
+    }
+
+    /**
+     * Returns the hot stream of changes made through this service, using the configured backpressure strategy.
+     */
+    protected Flux<EntityChangeEvent<E>> changeEvents() {
+        return changeFeed.events();
+    }
+
+    protected Flux<EntityChangeEvent<E>> changeEvents(final ChangeFeedBackpressure backpressure) {
+        return changeFeed.events(backpressure);
+    }
+
+    /**
+     * Returns the current adaptive concurrency limits per operation, or an empty list if limiting is disabled.
+     */
+    public List<ConcurrencyLimitSnapshot> concurrencyLimits() {
+        return (concurrencyLimiters != null)
+                ? concurrencyLimiters.values().stream()
+                        .map(AimdConcurrencyLimiter::snapshot)
+                        .collect(Collectors.toList())
+                : Collections.emptyList();
+    }
+
+    /**
+     * Writes out any updates held back by write-behind mode, waiting for flushes already in flight. Invoked
+     * automatically through {@link #closeChangeFeed} when the application context closes.
+     */
+    public void flushPendingUpdates() {
+        if (writeBehind != null) {
+            writeBehind.close().block(writeBehindShutdownTimeout);
+        }
+    }
+
+    /**
+     * Completes the change feed for any remaining subscribers, after flushing pending updates so their events are
+     * still delivered. Invoked automatically when the application context closes.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void closeChangeFeed() {
+        flushPendingUpdates();
+        changeFeed.close();
+    }
+
+    private <T> Mono<T> execute(final CrudOperation operation, final Mono<T> source) {
+        final Mono<T> timed = withTimeout(operation, source);
+        return crudMetrics.record(operation, (concurrencyLimiters != null)
+                ? concurrencyLimiters.get(operation).limit(timed)
+                : timed);
+    }
+
+    private <T> Flux<T> execute(final CrudOperation operation, final Flux<T> source) {
+        final Flux<T> timed = withTimeout(operation, source);
+        return crudMetrics.record(operation, (concurrencyLimiters != null)
+                ? concurrencyLimiters.get(operation).limit(timed)
+                : timed);
+    }
+
+    private <T> Mono<T> withTimeout(final CrudOperation operation, final Mono<T> source) {
+        final Duration timeout = operationTimeouts.get(operation);
+        return (timeout == null) ? source : source.timeout(timeout)
+                .onErrorMap(TimeoutException.class, t -> new OperationTimeoutException(entityType, operation, timeout));
+    }
+
+    private <T> Flux<T> withTimeout(final CrudOperation operation, final Flux<T> source) {
+        final Duration timeout = operationTimeouts.get(operation);
+        return (timeout == null) ? source : source.timeout(timeout)
+                .onErrorMap(TimeoutException.class, t -> new OperationTimeoutException(entityType, operation, timeout));
+    }
+
+    private Mono<E> saveUpdate(final UUID guid, final UnaryOperator<E> update) {
+        return Mono.defer(() -> entityRepository.findByGuid(guid))
+                .switchIfEmpty(entityNotFound(guid))
+                .map(update)
                 .flatMap(entityRepository::save)
-                .onErrorResume(handleMonoError(t -> new UpdateEntityException(entityType, guid, t)));
+                .retryWhen(updateRetry.onRetryExhaustedThrow(
+                        (spec, signal) -> new EntityConflictException(entityType, guid, signal.failure())
+                ));
+    }
+
+    private Flux<CrudResult<E>> createChunk(final List<EB> entityBuilders) {
+        return execute(CrudOperation.CREATE_BATCH, Flux.defer(() -> {
+            final AtomicReferenceArray<CrudResult<E>> results = new AtomicReferenceArray<>(entityBuilders.size());
+            final Map<UUID, Integer> indexesByGuid = new LinkedHashMap<>();
+            final List<E> entities = new ArrayList<>();
+            for (int i = 0; i < entityBuilders.size(); i++) {
+                try {
+                    final E entity = stampNewEntity(entityBuilders.get(i));
+                    indexesByGuid.put(entity.getGuid(), i);
+                    entities.add(entity);
+                } catch (final RuntimeException e) {
+                    results.set(i, CrudResult.failure(null, new CreateEntityException(entityType, e)));
+                }
+            }
+
+            // a failed batch may have saved some entities already, so only the unsaved ones are retried
+            final Set<UUID> saved = ConcurrentHashMap.newKeySet();
+            return (entities.isEmpty() ? Flux.<E>empty() : entityRepository.saveAll(entities))
+                    .doOnNext(entity -> saved.add(entity.getGuid()))
+                    .map(entity -> CrudResult.success(entity.getGuid(), entity))
+                    .onErrorResume(t -> Flux.fromIterable(entities)
+                            .filter(entity -> !saved.contains(entity.getGuid()))
+                            .concatMap(this::createSingle))
+                    .doOnNext(result -> {
+                        results.set(indexesByGuid.get(result.getGuid()), result);
+                        if (result.isSuccess()) {
+                            changeFeed.publishCreated(result.getValue());
+                        }
+                    })
+                    .thenMany(Flux.defer(() -> Flux.range(0, entityBuilders.size()).map(results::get)));
+        }));
+    }
+
+    private Mono<CrudResult<E>> createSingle(final E entity) {
+        return entityRepository.save(entity)
+                .map(saved -> CrudResult.success(saved.getGuid(), saved))
+                .onErrorResume(t -> Mono.just(CrudResult.failure(
+                        entity.getGuid(), new CreateEntityException(entityType, t)
+                )));
+    }
+
+    private Mono<E> upsert(final UUID guid, final EB entityBuilder, final Function<E, EB> fnUpdate) {
+        return Mono.defer(() -> {
+            final AtomicBoolean inserted = new AtomicBoolean();
+            return entityRepository.upsert(
+                    guid,
+                    () -> {
+                        inserted.set(true);
+                        return stampNewEntity(entityBuilder, guid);
+                    },
+                    entity -> {
+                        inserted.set(false);
+                        return stampUpdatedEntity(entity, fnUpdate);
+                    })
+                    .doOnNext(entity -> {
+                        entityCache.put(entity);
+                        if (inserted.get()) {
+                            changeFeed.publishCreated(entity);
+                        } else {
+                            changeFeed.publishUpdated(entity);
+                        }
+                    });
+        }).retryWhen(updateRetry.onRetryExhaustedThrow(
+                (spec, signal) -> new EntityConflictException(entityType, guid, signal.failure())
+        ));
+    }
+
+    /**
+     * Upserts one chunk: existing entities are read with a single query, and the stamped inserts and updates are
+     * saved in one batch. Items the batch did not persist, such as after a failed lookup or a concurrent write to
+     * the same GUID, and repeats of a GUID within the chunk fall back to {@link #createOrUpdateEntity} in input order.
+     */
+    private Flux<CrudResult<E>> upsertChunk(final List<Tuple2<UUID, EB>> chunk, final BiFunction<E, EB, EB> fnMerge) {
+        return execute(CrudOperation.UPSERT_BATCH, Flux.defer(() -> {
+            final AtomicReferenceArray<CrudResult<E>> results = new AtomicReferenceArray<>(chunk.size());
+            final Map<UUID, Integer> indexesByGuid = new LinkedHashMap<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                indexesByGuid.putIfAbsent(chunk.get(i).getT1(), i);
+            }
+            final Set<UUID> inserted = ConcurrentHashMap.newKeySet();
+
+            return entityRepository.findByGuidIn(indexesByGuid.keySet())
+                    .collectMap(Entity::getGuid)
+                    .flatMapMany(found -> {
+                        final List<E> entities = new ArrayList<>(indexesByGuid.size());
+                        indexesByGuid.forEach((guid, i) -> {
+                            final EB entityBuilder = chunk.get(i).getT2();
+                            final E existing = found.get(guid);
+                            try {
+                                if (existing == null) {
+                                    entities.add(stampNewEntity(entityBuilder, guid));
+                                    inserted.add(guid);
+                                } else {
+                                    entities.add(stampUpdatedEntity(existing, e -> fnMerge.apply(e, entityBuilder)));
+                                }
+                            } catch (final RuntimeException e) {
+                                final UpsertEntityException failure = new UpsertEntityException(entityType, guid, e);
+                                results.set(i, CrudResult.failure(guid, failure));
+                            }
+                        });
+                        return entities.isEmpty() ? Flux.<E>empty() : entityRepository.saveAll(entities);
+                    })
+                    .doOnNext(entity -> {
+                        entityCache.put(entity);
+                        if (inserted.contains(entity.getGuid())) {
+                            changeFeed.publishCreated(entity);
+                        } else {
+                            changeFeed.publishUpdated(entity);
+                        }
+                        results.set(indexesByGuid.get(entity.getGuid()), CrudResult.success(entity.getGuid(), entity));
+                    })
+                    // a failed lookup or batch leaves items unresolved, and those are upserted one at a time
+                    .onErrorResume(t -> Mono.empty())
+                    .thenMany(Flux.defer(() -> Flux.range(0, chunk.size()).concatMap(i -> (results.get(i) != null)
+                            ? Mono.just(results.get(i))
+                            : upsertSingle(chunk.get(i).getT1(), chunk.get(i).getT2(), fnMerge))));
+        }));
+    }
+
+    private Mono<CrudResult<E>> upsertSingle(
+            final UUID guid, final EB entityBuilder, final BiFunction<E, EB, EB> fnMerge
+    ) {
+        return createOrUpdateEntity(guid, entityBuilder, entity -> fnMerge.apply(entity, entityBuilder))
+                .map(entity -> CrudResult.success(guid, entity))
+                .onErrorResume(CrudServiceException.class, e -> Mono.just(CrudResult.failure(guid, e)));
+    }
+
+    private <R> Flux<CrudResult<E>> patchChunk(
+            final List<Tuple2<UUID, JsonPatch>> chunk,
+            final Function<E, R> fnToResource,
+            final Class<R> resourceClass,
+            final BiFunction<E, R, EB> fnFromResource
+    ) {
+        final Map<JsonPatch, Optional<CompiledPatch<R>>> compiled = new IdentityHashMap<>();
+        final Map<UUID, List<Integer>> indexesByGuid = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            final Tuple2<UUID, JsonPatch> item = chunk.get(i);
+            compiled.computeIfAbsent(item.getT2(), patch -> patchEngine.compile(patch, resourceClass));
+            indexesByGuid.computeIfAbsent(item.getT1(), guid -> new ArrayList<>()).add(i);
+        }
+        final AtomicReferenceArray<CrudResult<E>> results = new AtomicReferenceArray<>(chunk.size());
+
+        return entityRepository.findByGuidIn(indexesByGuid.keySet())
+                .collectMap(Entity::getGuid)
+                .onErrorResume(t -> {
+                    indexesByGuid.forEach((guid, indexes) -> indexes.forEach(i -> results.set(i, CrudResult.failure(
+                            guid, new UpdateEntityException(entityType, guid, t)
+                    ))));
+                    return Mono.empty();
+                })
+                .flatMapMany(found -> Flux.fromIterable(indexesByGuid.entrySet())
+                        .parallel(patchParallelism)
+                        .runOn(Schedulers.parallel())
+                        .map(entry -> {
+                            final UUID guid = entry.getKey();
+                            final E entity = found.get(guid);
+                            if (entity == null) {
+                                entry.getValue().forEach(i -> results.set(i, CrudResult.failure(
+                                        guid, new EntityNotFoundException(entityType, guid)
+                                )));
+                                return new PatchedEntity<E>(guid, null, Collections.emptyList());
+                            }
+                            try {
+                                return patchEntity(
+                                        chunk, compiled, results, entity, entry.getValue(), fnToResource,
+                                        resourceClass, fnFromResource
+                                );
+                            } catch (final RuntimeException e) {
+                                // a failing converter or stamp fails every patch of this GUID, not the whole chunk
+                                entry.getValue().forEach(i -> results.set(i, CrudResult.failure(
+                                        guid, new UpdateEntityException(entityType, guid, e)
+                                )));
+                                return new PatchedEntity<E>(guid, null, Collections.emptyList());
+                            }
+                        })
+                        .filter(patchedEntity -> patchedEntity.entity != null)
+                        .sequential())
+                .collectList()
+                .flatMapMany(this::savePatched)
+                .doOnNext(saved -> saved.applied.forEach(i -> results.set(i, saved.result)))
+                .thenMany(Flux.defer(() -> Flux.range(0, chunk.size()).map(results::get)));
+    }
+
+    private <R> PatchedEntity<E> patchEntity(
+            final List<Tuple2<UUID, JsonPatch>> chunk,
+            final Map<JsonPatch, Optional<CompiledPatch<R>>> compiled,
+            final AtomicReferenceArray<CrudResult<E>> results,
+            final E entity,
+            final List<Integer> indexes,
+            final Function<E, R> fnToResource,
+            final Class<R> resourceClass,
+            final BiFunction<E, R, EB> fnFromResource
+    ) {
+        final UUID guid = entity.getGuid();
+        R resource = fnToResource.apply(entity);
+        final List<Integer> applied = new ArrayList<>();
+        for (final Integer i : indexes) {
+            final JsonPatch patch = chunk.get(i).getT2();
+            try {
+                resource = patchEngine.apply(patch, compiled.get(patch), resource, resourceClass);
+                applied.add(i);
+            } catch (final Exception e) {
+                results.set(i, CrudResult.failure(guid, new PatchInvalidException(
+                        resourceClass.getSimpleName(), guid, e
+                )));
+            }
+        }
+        final R patched = resource;
+        return applied.isEmpty()
+                ? new PatchedEntity<E>(guid, null, applied)
+                : new PatchedEntity<>(guid, stampUpdatedEntity(entity, e -> fnFromResource.apply(e, patched)), applied);
+    }
+
+    private Flux<PatchedEntity<E>> savePatched(final List<PatchedEntity<E>> patchedEntities) {
+        if (patchedEntities.isEmpty()) {
+            return Flux.empty();
+        }
+        final Map<UUID, PatchedEntity<E>> byGuid = patchedEntities.stream()
+                .collect(Collectors.toMap(p -> p.guid, p -> p));
+        final List<E> entities = patchedEntities.stream()
+                .map(p -> p.entity)
+                .collect(Collectors.toList());
+
+        // a failed batch may have saved some entities already, so only the unsaved ones are retried
+        final Set<UUID> saved = ConcurrentHashMap.newKeySet();
+        return entityRepository.saveAll(entities)
+                .doOnNext(entity -> saved.add(entity.getGuid()))
+                .map(entity -> byGuid.get(entity.getGuid()).saved(entity))
+                .onErrorResume(t -> Flux.fromIterable(patchedEntities)
+                        .filter(patchedEntity -> !saved.contains(patchedEntity.guid))
+                        .concatMap(this::savePatchedSingle))
+                .doOnNext(patchedEntity -> {
+                    if (patchedEntity.result.isSuccess()) {
+                        entityCache.put(patchedEntity.result.getValue());
+                        changeFeed.publishUpdated(patchedEntity.result.getValue());
+                    } else {
+                        entityCache.invalidate(patchedEntity.guid);
+                    }
+                });
+    }
+
+    private Mono<PatchedEntity<E>> savePatchedSingle(final PatchedEntity<E> patchedEntity) {
+        return entityRepository.save(patchedEntity.entity)
+                .map(patchedEntity::saved)
+                .onErrorResume(t -> Mono.just(patchedEntity.failed(
+                        new UpdateEntityException(entityType, patchedEntity.guid, t)
+                )));
+    }
+
+    private Mono<DeleteEntitiesResult> deleteChunk(final List<UUID> guids) {
+        final Set<UUID> requested = new LinkedHashSet<>(guids);
+        return execute(CrudOperation.DELETE_BATCH, entityRepository.findByGuidIn(requested)
+                .map(Entity::getGuid)
+                .collect(Collectors.toSet())
+                .flatMap(found -> (found.isEmpty() ? Mono.just(0) : entityRepository.deleteByGuidIn(found))
+                        .defaultIfEmpty(0)
+                        .flatMap(deleted -> recordTombstones(found).thenReturn(deleted))
+                        .doOnNext(deleted -> found.forEach(changeFeed::publishDeleted))
+                        .map(deleted -> DeleteEntitiesResult.of(deleted, requested.stream()
+                                .filter(guid -> !found.contains(guid))
+                                .collect(Collectors.toList()))))
+                .doFinally(signal -> requested.forEach(entityCache::invalidate))
+                .onErrorResume(handleMonoError(t -> new DeleteEntitiesException(entityType, t))));
+    }
+
+    private Mono<Void> recordTombstones(final Collection<UUID> guids) {
+        if (tombstoneStore == null || guids.isEmpty()) {
+            return Mono.empty();
+        }
+        final Instant deletedOn = clock.instant();
+        return Flux.fromIterable(guids)
+                .concatMap(guid -> tombstoneStore.record(new Tombstone(entityType, guid, deletedOn)))
+                .then();
+    }
+
+    private Mono<E> loadEntityByGuid(final UUID guid) {
+        return Mono.defer(() -> {
+            final long generation = entityCache.generation();
+            return ((findLatency != null) ? hedgedFindByGuid(guid) : entityRepository.findByGuid(guid))
+                    .doOnNext(entity -> entityCache.putIfUnchanged(entity, generation));
+        }).switchIfEmpty(entityNotFound(guid));
+    }
+
+    /**
+     * Reads by GUID, sending a hedged second read if the first has not answered within the tracked percentile.
+     * Only reads that complete feed the tracker, each timed from its own start: the winner is recorded and the
+     * cancelled loser, like a failed read, is not.
+     */
+    private Mono<E> hedgedFindByGuid(final UUID guid) {
+        return Mono.defer(() -> {
+            final Mono<E> primary = timedFindByGuid(guid);
+
+            final long percentileNanos = findLatency.getPercentileNanos();
+            if (percentileNanos < 0) {
+                return primary;
+            }
+
+            final Duration delay = Duration.ofNanos(Math.max(percentileNanos, hedgeMinDelay.toNanos()));
+            final Mono<E> hedge = Mono.delay(delay)
+                    .then(Mono.defer(() -> {
+                        hedgesFired.incrementAndGet();
+                        return timedFindByGuid(guid);
+                    }))
+                    .doOnSuccess(entity -> hedgesWon.incrementAndGet());
+            return Mono.first(primary, hedge);
+        });
+    }
+
+    private Mono<E> timedFindByGuid(final UUID guid) {
+        return Mono.defer(() -> {
+            final long startNanos = System.nanoTime();
+            return entityRepository.findByGuid(guid)
+                    .doOnSuccess(entity -> findLatency.record(System.nanoTime() - startNanos));
+        });
+    }
+
+    private <T> Mono<T> entityNotFound(final UUID guid) {
+        return Mono.defer(() -> Mono.error(new EntityNotFoundException(entityType, guid)));
+    }
+
+    private E stampNewEntity(final EB entityBuilder) {
+        return stampNewEntity(entityBuilder, guidGenerator.generate());
+    }
+
+    private E stampNewEntity(final EB entityBuilder, final UUID guid) {
+        final Instant timestamp = clock.instant();
+        return entityBuilder
+                .guid(guid)
+                .createdOn(timestamp)
+                .modifiedOn(timestamp)
+                .build();
+    }
+
+    private E stampUpdatedEntity(final E entity, final Function<E, EB> fnUpdate) {
+        final Instant timestamp = clock.instant();
+        return fnUpdate.apply(entity)
+                .id(entity.getId())
+                .guid(entity.getGuid())
+                .version(entity.getVersion())
+                .createdBy(entity.getCreatedBy())
+                .createdOn(entity.getCreatedOn())
+                .modifiedBy(entity.getModifiedBy())
+                .modifiedOn(timestamp)
+                .build();
     }
 
     private <T> Function<? super Throwable, ? extends Publisher<? extends T>> handleFluxError(
@@ -131,4 +897,37 @@ public abstract class CrudServiceSupport<E extends Entity, EB extends EntityBuil
         );
     }
 
+    private static final class PatchedEntity<E extends Entity> {
+
+        private final UUID guid;
+
+        private final E entity;
+
+        private final List<Integer> applied;
+
+        private final CrudResult<E> result;
+
+        private PatchedEntity(final UUID guid, final E entity, final List<Integer> applied) {
+            this(guid, entity, applied, null);
+        }
+
+        private PatchedEntity(
+                final UUID guid, final E entity, final List<Integer> applied, final CrudResult<E> result
+        ) {
+            this.guid = guid;
+            this.entity = entity;
+            this.applied = applied;
+            this.result = result;
+        }
+
+        private PatchedEntity<E> saved(final E savedEntity) {
+            return new PatchedEntity<>(guid, savedEntity, applied, CrudResult.success(guid, savedEntity));
+        }
+
+        private PatchedEntity<E> failed(final CrudServiceException error) {
+            return new PatchedEntity<>(guid, entity, applied, CrudResult.failure(guid, error));
+        }
+
+    }
+
 }
@@ -0,0 +1,57 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Summarizes a bulk delete: how many entities were removed and which requested GUIDs did not exist.
+ */
+@Value
+public class DeleteEntitiesResult {
+
+    long deletedCount;
+
+    List<UUID> missingGuids;
+
+    public static DeleteEntitiesResult of(final long deletedCount, final List<UUID> missingGuids) {
+        return new DeleteEntitiesResult(deletedCount, Collections.unmodifiableList(missingGuids));
+    }
+
+    public static DeleteEntitiesResult combine(final List<DeleteEntitiesResult> results) {
+        long deletedCount = 0;
+        final List<UUID> missingGuids = new ArrayList<>();
+        for (final DeleteEntitiesResult result : results) {
+            deletedCount += result.getDeletedCount();
+            missingGuids.addAll(result.getMissingGuids());
+        }
+        return of(deletedCount, missingGuids);
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import io.jrb.labs.common.entity.Entity;
+import io.jrb.labs.common.repository.DeltaCursor;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Defines a slice of entities in {@code (modifiedOn, id)} order along with the cursor for the following slice.
+ *
+ * @param <E> the entity type
+ */
+@Value
+public class DeltaPage<E extends Entity> {
+
+    List<E> entities;
+
+    DeltaCursor nextCursor;
+
+    public static <E extends Entity> DeltaPage<E> of(final List<E> entities, final int pageSize) {
+        final boolean lastPage = entities.isEmpty() || entities.size() < pageSize;
+        final DeltaCursor nextCursor = lastPage ? null : DeltaCursor.after(entities.get(entities.size() - 1));
+        return new DeltaPage<>(entities, nextCursor);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+}
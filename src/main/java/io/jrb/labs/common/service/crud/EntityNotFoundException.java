@@ -25,12 +25,10 @@ package io.jrb.labs.common.service.crud;
 
 import java.util.UUID;
 
-import static java.lang.String.format;
-
 public class EntityNotFoundException extends CrudServiceException {
 
     public EntityNotFoundException(final String type, final UUID guid) {
-        super(format("No %s resource can be found - guid=%s", type, guid));
+        super(null, "No %s resource can be found - guid=%s", type, guid);
     }
 
 }
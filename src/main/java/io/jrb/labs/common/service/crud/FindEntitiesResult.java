@@ -0,0 +1,63 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import io.jrb.labs.common.entity.Entity;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Summarizes a multi-get: the entities found, in the order their GUIDs were requested, and the GUIDs not found.
+ *
+ * @param <E> the entity type
+ */
+@Value
+public class FindEntitiesResult<E extends Entity> {
+
+    List<E> entities;
+
+    List<UUID> missingGuids;
+
+    public static <E extends Entity> FindEntitiesResult<E> of(final List<UUID> requested, final Map<UUID, E> found) {
+        final List<E> entities = new ArrayList<>(found.size());
+        final List<UUID> missingGuids = new ArrayList<>();
+        for (final UUID guid : requested) {
+            final E entity = found.get(guid);
+            if (entity != null) {
+                entities.add(entity);
+            } else {
+                missingGuids.add(guid);
+            }
+        }
+        return new FindEntitiesResult<>(
+                Collections.unmodifiableList(entities), Collections.unmodifiableList(missingGuids)
+        );
+    }
+
+}
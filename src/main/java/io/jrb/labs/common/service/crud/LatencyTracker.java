@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks a percentile over a sliding window of recent latencies. Samples go into a fixed ring buffer; the first
+ * percentile is computed once {@value #MIN_SAMPLES} samples are in, and after that only every
+ * {@code recomputeInterval} samples so that recording stays cheap.
+ */
+class LatencyTracker {
+
+    private static final int MIN_SAMPLES = 100;
+
+    private final double percentile;
+
+    private final int recomputeInterval;
+
+    private final AtomicLongArray samples;
+
+    private final AtomicLong sampleCount = new AtomicLong();
+
+    private volatile long percentileNanos = -1;
+
+    LatencyTracker(final double percentile, final int windowSize, final int recomputeInterval) {
+        this.percentile = percentile;
+        this.recomputeInterval = recomputeInterval;
+        this.samples = new AtomicLongArray(windowSize);
+    }
+
+    void record(final long latencyNanos) {
+        final long count = sampleCount.incrementAndGet();
+        samples.set((int) ((count - 1) % samples.length()), latencyNanos);
+        if (count == MIN_SAMPLES || (count > MIN_SAMPLES && count % recomputeInterval == 0)) {
+            recompute((int) Math.min(count, samples.length()));
+        }
+    }
+
+    /**
+     * Returns the tracked percentile in nanoseconds, or -1 until enough samples have been recorded.
+     */
+    long getPercentileNanos() {
+        return percentileNanos;
+    }
+
+    private void recompute(final int filled) {
+        final long[] window = new long[filled];
+        for (int i = 0; i < filled; i++) {
+            window[i] = samples.get(i);
+        }
+        Arrays.sort(window);
+        final int index = Math.max(0, (int) Math.ceil(percentile * filled) - 1);
+        percentileNanos = window[index];
+    }
+
+}
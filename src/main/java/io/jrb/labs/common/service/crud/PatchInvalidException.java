@@ -25,12 +25,10 @@ package io.jrb.labs.common.service.crud;
 
 import java.util.UUID;
 
-import static java.lang.String.format;
-
 public class PatchInvalidException extends CrudServiceException {
 
     public PatchInvalidException(final String type, final UUID guid, final Throwable cause) {
-        super(format("Invalid patch for %s - guid=%s", type, guid), cause);
+        super(cause, "Invalid patch for %s - guid=%s", type, guid);
     }
 
 }
@@ -23,12 +23,10 @@
  */
 package io.jrb.labs.common.service.crud;
 
-import static java.lang.String.format;
-
 public class RetrieveEntitiesException extends CrudServiceException {
 
     public RetrieveEntitiesException(final String type, final Throwable cause) {
-        super(format("Unexpected error encountered while retrieving %s - guid=%s", type), cause);
+        super(cause, "Unexpected error encountered while retrieving %s", type);
     }
 
 }
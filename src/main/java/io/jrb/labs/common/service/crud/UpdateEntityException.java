@@ -25,12 +25,10 @@ package io.jrb.labs.common.service.crud;
 
 import java.util.UUID;
 
-import static java.lang.String.format;
-
 public class UpdateEntityException extends CrudServiceException {
 
     public UpdateEntityException(final String type, final UUID guid, final Throwable cause) {
-        super(format("Unexpected error encountered while updating %s - guid=%s", type, guid), cause);
+        super(cause, "Unexpected error encountered while updating %s - guid=%s", type, guid);
     }
 
 }
@@ -0,0 +1,240 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import io.jrb.labs.common.entity.Entity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Folds updates to the same entity that arrive within a time window into a single read-modify-write, and writes
+ * the folded results of all entities in the window with one batched save. Each caller completes once the save
+ * that includes its change has finished. Folded updates run in isolation, so one that throws fails only its own
+ * caller, and entities a failed batch did not save fall back to single updates.
+ *
+ * @param <E> the entity type
+ */
+class WriteBehindUpdater<E extends Entity> {
+
+    private final Duration window;
+
+    private final int maxBatchSize;
+
+    private final Scheduler scheduler;
+
+    private final Function<UUID, Mono<E>> loader;
+
+    private final Function<List<E>, Flux<E>> batchSaver;
+
+    private final BiFunction<UUID, UnaryOperator<E>, Mono<E>> singleUpdater;
+
+    private final Object lock = new Object();
+
+    private final Set<Mono<Void>> inFlight = ConcurrentHashMap.newKeySet();
+
+    private Map<UUID, PendingUpdate<E>> pending = new LinkedHashMap<>();
+
+    private boolean flushScheduled;
+
+    private boolean closed;
+
+    WriteBehindUpdater(
+            final Duration window,
+            final int maxBatchSize,
+            final Scheduler scheduler,
+            final Function<UUID, Mono<E>> loader,
+            final Function<List<E>, Flux<E>> batchSaver,
+            final BiFunction<UUID, UnaryOperator<E>, Mono<E>> singleUpdater
+    ) {
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+        this.loader = loader;
+        this.batchSaver = batchSaver;
+        this.singleUpdater = singleUpdater;
+    }
+
+    Mono<E> enqueue(final UUID guid, final UnaryOperator<E> update) {
+        return Mono.create(sink -> {
+            final boolean flushNow;
+            final boolean scheduleFlush;
+            synchronized (lock) {
+                if (closed) {
+                    sink.error(new IllegalStateException("write-behind updates have been shut down"));
+                    return;
+                }
+                pending.computeIfAbsent(guid, key -> new PendingUpdate<>()).add(update, sink);
+                flushNow = pending.size() >= maxBatchSize;
+                scheduleFlush = !flushNow && !flushScheduled;
+                flushScheduled = flushScheduled || scheduleFlush;
+            }
+            if (flushNow) {
+                flush().subscribe();
+            } else if (scheduleFlush) {
+                scheduler.schedule(() -> flush().subscribe(), window.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    int pendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    Mono<Void> flush() {
+        final Map<UUID, PendingUpdate<E>> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            flushScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return Mono.empty();
+        }
+
+        final AtomicReference<Mono<Void>> self = new AtomicReference<>();
+        final Mono<Void> flight = Flux.fromIterable(batch.entrySet())
+                .flatMap(entry -> loader.apply(entry.getKey())
+                        .<E>handle((entity, sink) -> {
+                            final E updated = entry.getValue().fold(entity);
+                            if (updated != null) {
+                                sink.next(updated);
+                            }
+                        })
+                        .onErrorResume(t -> {
+                            entry.getValue().error(t);
+                            return Mono.empty();
+                        }))
+                .collectList()
+                .flatMap(updated -> save(batch, updated))
+                .doFinally(signal -> inFlight.remove(self.get()))
+                .cache();
+        self.set(flight);
+        inFlight.add(flight);
+        return flight;
+    }
+
+    /**
+     * Stops accepting updates, flushes the pending ones, and completes once every flush still in flight has
+     * finished.
+     */
+    Mono<Void> close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        flush();
+        return Mono.when(new ArrayList<>(inFlight));
+    }
+
+    private Mono<Void> save(final Map<UUID, PendingUpdate<E>> batch, final List<E> updated) {
+        if (updated.isEmpty()) {
+            return Mono.empty();
+        }
+        // a failed batch may have saved some entities already, so only the unsaved ones fall back
+        final Set<UUID> saved = ConcurrentHashMap.newKeySet();
+        return batchSaver.apply(updated)
+                .doOnNext(entity -> {
+                    saved.add(entity.getGuid());
+                    batch.get(entity.getGuid()).success(entity);
+                })
+                .then()
+                .onErrorResume(t -> Flux.fromIterable(updated)
+                        .map(Entity::getGuid)
+                        .filter(guid -> !saved.contains(guid))
+                        .flatMap(guid -> {
+                            final PendingUpdate<E> pendingUpdate = batch.get(guid);
+                            return singleUpdater.apply(guid, pendingUpdate::fold)
+                                    .doOnNext(pendingUpdate::success)
+                                    .doOnError(pendingUpdate::error)
+                                    .onErrorResume(e -> Mono.empty());
+                        })
+                        .then());
+    }
+
+    private static class PendingUpdate<E> {
+
+        private final List<UnaryOperator<E>> updates = new ArrayList<>(1);
+
+        private final List<MonoSink<E>> sinks = new ArrayList<>(1);
+
+        private final List<MonoSink<E>> applied = new ArrayList<>(1);
+
+        void add(final UnaryOperator<E> update, final MonoSink<E> sink) {
+            updates.add(update);
+            sinks.add(sink);
+        }
+
+        /**
+         * Applies every update that has not failed yet, in arrival order. An update that throws fails only its own
+         * caller and is skipped, and later updates see the result of the ones before it.
+         *
+         * @return the folded entity, or null if every update failed
+         */
+        E fold(final E entity) {
+            applied.clear();
+            E current = entity;
+            for (int i = 0; i < updates.size(); i++) {
+                final MonoSink<E> sink = sinks.get(i);
+                if (sink == null) {
+                    continue;
+                }
+                try {
+                    current = updates.get(i).apply(current);
+                    applied.add(sink);
+                } catch (final RuntimeException e) {
+                    sinks.set(i, null);
+                    sink.error(e);
+                }
+            }
+            return applied.isEmpty() ? null : current;
+        }
+
+        void success(final E entity) {
+            applied.forEach(sink -> sink.success(entity));
+        }
+
+        void error(final Throwable t) {
+            sinks.stream().filter(sink -> sink != null).forEach(sink -> sink.error(t));
+        }
+
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.cache;
+
+import io.jrb.labs.common.test.TestEntity;
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class CaffeineEntityCacheTest implements Testable {
+
+    @Test
+    void testReadThroughCounters() {
+        final EntityCache<TestEntity> cache = new CaffeineEntityCache<>(10, Duration.ofMinutes(1));
+        final TestEntity entity = TestEntity.builder()
+                .guid(UUID.randomUUID())
+                .name(randomString(10, 25))
+                .build();
+
+        assertThat(cache.get(entity.getGuid()).isPresent(), is(false));
+        cache.put(entity);
+        assertThat(cache.get(entity.getGuid()).orElseThrow(), is(entity));
+
+        givenNotNull(cache.stats(), (stats) -> {
+            assertThat(stats.getHitCount(), is(1L));
+            assertThat(stats.getMissCount(), is(1L));
+            assertThat(stats.getHitRate(), is(0.5));
+        });
+    }
+
+    @Test
+    void testInvalidate() {
+        final EntityCache<TestEntity> cache = new CaffeineEntityCache<>(10, Duration.ofMinutes(1));
+        final TestEntity entity = TestEntity.builder().guid(UUID.randomUUID()).build();
+
+        cache.put(entity);
+        cache.invalidate(entity.getGuid());
+
+        assertThat(cache.get(entity.getGuid()).isPresent(), is(false));
+    }
+
+    @Test
+    void testSkipsReadPutAfterInvalidate() {
+        final EntityCache<TestEntity> cache = new CaffeineEntityCache<>(10, Duration.ofMinutes(1));
+        final TestEntity entity = TestEntity.builder().guid(UUID.randomUUID()).build();
+
+        final long generation = cache.generation();
+        cache.invalidate(entity.getGuid());
+        cache.putIfUnchanged(entity, generation);
+
+        assertThat(cache.get(entity.getGuid()).isPresent(), is(false));
+    }
+
+    @Test
+    void testSkipsReadPutAfterWrite() {
+        final EntityCache<TestEntity> cache = new CaffeineEntityCache<>(10, Duration.ofMinutes(1));
+        final UUID guid = UUID.randomUUID();
+        final TestEntity stale = TestEntity.builder().guid(guid).name(randomString(10, 25)).build();
+        final TestEntity updated = stale.toBuilder().name(randomString(10, 25)).build();
+
+        final long generation = cache.generation();
+        cache.put(updated);
+        cache.putIfUnchanged(stale, generation);
+
+        assertThat(cache.get(guid).orElseThrow(), is(updated));
+    }
+
+    @Test
+    void testSkipsReadPutAfterWriteGenerationEvicted() {
+        final EntityCache<TestEntity> cache = new CaffeineEntityCache<>(1, Duration.ofMinutes(1));
+        final UUID guid = UUID.randomUUID();
+        final TestEntity stale = TestEntity.builder().guid(guid).name(randomString(10, 25)).build();
+
+        final long generation = cache.generation();
+        cache.invalidate(guid);
+        IntStream.range(0, 100).forEach(i -> cache.put(TestEntity.builder().guid(UUID.randomUUID()).build()));
+        cache.putIfUnchanged(stale, generation);
+
+        assertThat(cache.get(guid).isPresent(), is(false));
+    }
+
+    @Test
+    void testKeepsUnchangedReadPut() {
+        final EntityCache<TestEntity> cache = new CaffeineEntityCache<>(10, Duration.ofMinutes(1));
+        final TestEntity entity = TestEntity.builder().guid(UUID.randomUUID()).build();
+
+        cache.putIfUnchanged(entity, cache.generation());
+
+        assertThat(cache.get(entity.getGuid()).orElseThrow(), is(entity));
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.cache;
+
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class SingleFlightTest implements Testable {
+
+    private final SingleFlight<String, String> flight = new SingleFlight<>();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void testConcurrentCallersShareOneLoad() {
+        final String key = randomString(10, 25);
+        final Function<String, Mono<String>> loader = countingLoader(k -> Mono.just(k + "-value"));
+
+        StepVerifier.create(Flux.merge(flight.execute(key, loader), flight.execute(key, loader)))
+                .expectNext(key + "-value", key + "-value")
+                .verifyComplete();
+
+        assertThat(loads.get(), is(1));
+        assertThat(flight.getCoalescedCount(), is(1L));
+        assertThat(flight.getInFlightCount(), is(0));
+    }
+
+    @Test
+    void testErrorReachesEveryCallerAndClearsFlight() {
+        final String key = randomString(10, 25);
+        final Function<String, Mono<String>> loader = countingLoader(k -> Mono.error(new IllegalStateException(k)));
+
+        StepVerifier.create(Flux.merge(
+                flight.execute(key, loader).onErrorResume(e -> Mono.just(e.getMessage())),
+                flight.execute(key, loader).onErrorResume(e -> Mono.just(e.getMessage()))
+        ))
+                .expectNext(key, key)
+                .verifyComplete();
+        assertThat(loads.get(), is(1));
+        assertThat(flight.getInFlightCount(), is(0));
+
+        StepVerifier.create(flight.execute(key, loader))
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertThat(loads.get(), is(2));
+    }
+
+    private Function<String, Mono<String>> countingLoader(final Function<String, Mono<String>> result) {
+        return key -> {
+            loads.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(50)).then(result.apply(key));
+        };
+    }
+
+}
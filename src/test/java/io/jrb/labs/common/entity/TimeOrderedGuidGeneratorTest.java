@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.entity;
+
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+class TimeOrderedGuidGeneratorTest implements Testable {
+
+    @Test
+    void testVersionAndVariant() {
+        final UUID guid = GuidGenerator.timeOrdered(Clock.systemUTC()).generate();
+
+        assertThat(guid.version(), is(7));
+        assertThat(guid.variant(), is(2));
+    }
+
+    @Test
+    void testOrderedByTimestamp() {
+        final Instant now = randomTimestamp(25);
+        final UUID earlier = generateAt(now);
+        final UUID later = generateAt(now.plusMillis(1));
+
+        assertThat(earlier.compareTo(later), is(lessThan(0)));
+        assertThat(earlier.getMostSignificantBits() >>> 16, is(now.toEpochMilli()));
+    }
+
+    private UUID generateAt(final Instant instant) {
+        return new TimeOrderedGuidGenerator(Clock.fixed(instant, ZoneOffset.UTC)).generate();
+    }
+
+}
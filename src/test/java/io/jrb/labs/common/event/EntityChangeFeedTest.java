@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.event;
+
+import io.jrb.labs.common.test.TestEntity;
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class EntityChangeFeedTest implements Testable {
+
+    private final EntityChangeFeed<TestEntity> feed = new EntityChangeFeed<>(
+            "TestEntity", Clock.systemUTC(), ChangeFeedBackpressure.BUFFER, 16, false
+    );
+
+    @Test
+    void testEventsPublishedToSubscribers() {
+        final TestEntity entity = TestEntity.builder()
+                .guid(UUID.randomUUID())
+                .name(randomString(10, 25))
+                .modifiedOn(randomTimestamp(5))
+                .build();
+
+        StepVerifier.create(feed.events())
+                .then(() -> feed.publishCreated(entity))
+                .then(() -> feed.publishDeleted(entity.getGuid()))
+                .then(feed::close)
+                .assertNext(event -> {
+                    assertThat(event.getChangeType(), is(EntityChangeType.CREATED));
+                    assertThat(event.getGuid(), is(entity.getGuid()));
+                    assertThat(event.getModifiedOn(), is(entity.getModifiedOn()));
+                    assertThat(event.getEntity(), is(nullValue()));
+                })
+                .assertNext(event -> assertThat(event.getChangeType(), is(EntityChangeType.DELETED)))
+                .verifyComplete();
+    }
+
+    @Test
+    void testDropStrategyDropsOverflowForSlowSubscriber() {
+        final EntityChangeFeed<TestEntity> dropping = new EntityChangeFeed<>(
+                "TestEntity", Clock.systemUTC(), ChangeFeedBackpressure.DROP, 16, false
+        );
+
+        StepVerifier.create(dropping.events(), 0)
+                .then(() -> publishCreated(dropping, 40))
+                .then(() -> assertThat(dropping.droppedCount(), is(24L)))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(16)
+                .then(dropping::close)
+                .verifyComplete();
+    }
+
+    @Test
+    void testBufferStrategyFailsSlowSubscriberPastBuffer() {
+        StepVerifier.create(feed.events(), 0)
+                .then(() -> publishCreated(feed, 16))
+                .then(() -> assertThat(feed.droppedCount(), is(0L)))
+                .then(() -> publishCreated(feed, 1))
+                .then(() -> assertThat(feed.droppedCount(), is(1L)))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(16)
+                .verifyErrorMatches(Exceptions::isOverflow);
+    }
+
+    @Test
+    void testLatestStrategyKeepsNewestForSlowSubscriber() {
+        final EntityChangeFeed<TestEntity> latest = new EntityChangeFeed<>(
+                "TestEntity", Clock.systemUTC(), ChangeFeedBackpressure.LATEST, 16, false
+        );
+        final List<UUID> guids = new ArrayList<>();
+
+        StepVerifier.create(latest.events(), 0)
+                .then(() -> guids.addAll(publishCreated(latest, 40)))
+                .thenRequest(16)
+                .expectNextCount(16)
+                .thenRequest(1)
+                .assertNext(event -> assertThat(event.getGuid(), is(guids.get(guids.size() - 1))))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testCancelledSubscriberIsRemoved() {
+        assertThat(feed.hasSubscribers(), is(false));
+        final Disposable subscription = feed.events().subscribe();
+        assertThat(feed.hasSubscribers(), is(true));
+
+        subscription.dispose();
+
+        assertThat(feed.hasSubscribers(), is(false));
+        publishCreated(feed, 1);
+        assertThat(feed.droppedCount(), is(0L));
+    }
+
+    private List<UUID> publishCreated(final EntityChangeFeed<TestEntity> target, final int count) {
+        final List<UUID> guids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final TestEntity entity = TestEntity.builder().guid(UUID.randomUUID()).build();
+            target.publishCreated(entity);
+            guids.add(entity.getGuid());
+        }
+        return guids;
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.h2;
+
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class H2ServerPropertiesTest implements Testable {
+
+    @Test
+    void testDefaultsLeaveUrlUntouched() {
+        final String url = "jdbc:h2:mem:test";
+
+        assertThat(H2ServerProperties.defaults().applyTo(url), is(url));
+        assertThat(H2ServerProperties.defaults().getConsoleMode(), is(H2StartMode.ASYNC));
+    }
+
+    @Test
+    void testStoreSettingsAppended() {
+        final H2ServerProperties properties = H2ServerProperties.builder()
+                .cacheSizeKb(32768)
+                .compress(true)
+                .writeDelayMs(100)
+                .fileLock(H2FileLock.NO)
+                .build();
+
+        assertThat(properties.applyTo("jdbc:h2:file:./data/test;CACHE_SIZE=1024"),
+                is("jdbc:h2:file:./data/test;CACHE_SIZE=1024;COMPRESS=TRUE;WRITE_DELAY=100;FILE_LOCK=NO"));
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.patch;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.JsonPatchException;
+import io.jrb.labs.common.resource.ErrorResponse;
+import io.jrb.labs.common.test.Testable;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Value;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonPatchEngineTest implements Testable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final JsonPatchEngine engine = new JsonPatchEngine(objectMapper);
+
+    @Test
+    void testCompiledReplaceAndRemove() throws Exception {
+        final String name = randomString(10, 25);
+        final Widget widget = widget(randomString(10, 25), 3);
+        final JsonPatch patch = patch("[{\"op\":\"test\",\"path\":\"/count\",\"value\":3},"
+                + "{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"" + name + "\"},"
+                + "{\"op\":\"remove\",\"path\":\"/description\"}]");
+
+        assertThat(engine.compile(patch, Widget.class).isPresent(), is(true));
+        givenNotNull(engine.apply(patch, widget, Widget.class), (patched) -> {
+            assertThat(patched.getName(), is(name));
+            assertThat(patched.getCount(), is(3));
+            assertThat(patched.getDescription(), is(nullValue()));
+        });
+        assertThat(widget.getDescription(), is("description"));
+    }
+
+    @Test
+    void testCompiledBeanMatchesTree() throws Exception {
+        final Widget widget = widget(randomString(10, 25), 3);
+        final JsonPatch patch = patch("[{\"op\":\"test\",\"path\":\"/count\",\"value\":3},"
+                + "{\"op\":\"add\",\"path\":\"/count\",\"value\":7},"
+                + "{\"op\":\"remove\",\"path\":\"/description\"}]");
+
+        final Widget compiled = engine.apply(patch, engine.compile(patch, Widget.class), widget, Widget.class);
+        final Widget tree = engine.apply(patch, Optional.empty(), widget, Widget.class);
+
+        assertThat(engine.compile(patch, Widget.class).isPresent(), is(true));
+        assertThat(compiled, is(tree));
+        assertThat(tree.getCount(), is(7));
+    }
+
+    @Test
+    void testCompiledBuilderMatchesTree() throws Exception {
+        final Gadget gadget = Gadget.builder().name(randomString(10, 25)).count(3).color("blue").build();
+        final String name = randomString(10, 25);
+        final JsonPatch patch = patch("[{\"op\":\"test\",\"path\":\"/count\",\"value\":3},"
+                + "{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"" + name + "\"},"
+                + "{\"op\":\"remove\",\"path\":\"/color\"}]");
+
+        final Gadget compiled = engine.apply(patch, engine.compile(patch, Gadget.class), gadget, Gadget.class);
+        final Gadget tree = engine.apply(patch, Optional.empty(), gadget, Gadget.class);
+
+        assertThat(engine.compile(patch, Gadget.class).isPresent(), is(true));
+        assertThat(compiled, is(tree));
+        assertThat(tree.getName(), is(name));
+        assertThat(tree.getColor(), is("red"));
+        assertThat(gadget.getColor(), is("blue"));
+    }
+
+    @Test
+    void testFailedTestOperation() throws Exception {
+        final Widget widget = widget(randomString(10, 25), 3);
+        final JsonPatch patch = patch("[{\"op\":\"test\",\"path\":\"/count\",\"value\":4}]");
+
+        assertThrows(JsonPatchException.class, () -> engine.apply(patch, widget, Widget.class));
+        assertThrows(JsonPatchException.class, () -> engine.apply(patch, Optional.empty(), widget, Widget.class));
+    }
+
+    @Test
+    void testAnnotatedPropertyFallsBackToTree() throws Exception {
+        final Label label = new Label();
+        label.setCount(3);
+        final JsonPatch patch = patch("[{\"op\":\"test\",\"path\":\"/count\",\"value\":\"3\"},"
+                + "{\"op\":\"replace\",\"path\":\"/count\",\"value\":\"7\"}]");
+
+        assertThat(engine.compile(patch, Label.class).isPresent(), is(false));
+        givenNotNull(engine.apply(patch, label, Label.class), (patched) -> assertThat(patched.getCount(), is(7)));
+    }
+
+    @Test
+    void testNestedPathIsNotCompiled() throws Exception {
+        final JsonPatch patch = patch("[{\"op\":\"replace\",\"path\":\"/name/first\",\"value\":\"x\"}]");
+
+        assertThat(engine.compile(patch, Widget.class).isPresent(), is(false));
+    }
+
+    @Test
+    void testNonEmptyInclusionFallsBackToTree() throws Exception {
+        final String message = randomString(10, 25);
+        final JsonPatch patch = patch("[{\"op\":\"add\",\"path\":\"/message\",\"value\":\"" + message + "\"}]");
+
+        assertThat(engine.compile(patch, ErrorResponse.class).isPresent(), is(false));
+    }
+
+    private JsonPatch patch(final String json) throws IOException {
+        return JsonPatch.fromJson(objectMapper.readTree(json));
+    }
+
+    private Widget widget(final String name, final int count) {
+        final Widget widget = new Widget();
+        widget.setName(name);
+        widget.setCount(count);
+        widget.setDescription("description");
+        return widget;
+    }
+
+    @Data
+    public static class Widget {
+
+        private String name;
+
+        private Integer count;
+
+        private String description;
+
+    }
+
+    @Data
+    public static class Label {
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        private Integer count;
+
+    }
+
+    @Value
+    @Builder(toBuilder = true)
+    @JsonDeserialize(builder = Gadget.GadgetBuilder.class)
+    public static class Gadget {
+
+        String name;
+
+        Integer count;
+
+        @Builder.Default
+        String color = "red";
+
+        @JsonPOJOBuilder(withPrefix = "")
+        public static class GadgetBuilder {
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.repository;
+
+import io.jrb.labs.common.test.TestEntity;
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DeltaCursorTest implements Testable {
+
+    @Test
+    void testTokenRoundTrip() {
+        final DeltaCursor cursor = DeltaCursor.after(TestEntity.builder()
+                .id(randomLong(1, 1_000_000))
+                .guid(UUID.randomUUID())
+                .modifiedOn(randomTimestamp(30))
+                .build());
+
+        assertThat(DeltaCursor.fromToken(cursor.toToken()), is(cursor));
+    }
+
+    @Test
+    void testSinceRoundTrip() {
+        final DeltaCursor cursor = DeltaCursor.since(Instant.now());
+
+        assertThat(DeltaCursor.fromToken(cursor.toToken()), is(cursor));
+    }
+
+    @Test
+    void testRejectsMissingModifiedOn() {
+        final TestEntity entity = TestEntity.builder().id(1L).guid(UUID.randomUUID()).build();
+
+        assertThrows(IllegalArgumentException.class, () -> DeltaCursor.after(entity));
+        assertThrows(IllegalArgumentException.class, () -> DeltaCursor.since(null));
+    }
+
+    @Test
+    void testRejectsMalformedTokens() {
+        assertThrows(IllegalArgumentException.class, () -> DeltaCursor.fromToken(null));
+        assertThrows(IllegalArgumentException.class, () -> DeltaCursor.fromToken("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> DeltaCursor.fromToken(encode("no-separator")));
+        assertThrows(IllegalArgumentException.class, () -> DeltaCursor.fromToken(encode("null|1")));
+        assertThrows(IllegalArgumentException.class, () -> DeltaCursor.fromToken(encode(Instant.now() + "|x")));
+    }
+
+    private static String encode(final String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
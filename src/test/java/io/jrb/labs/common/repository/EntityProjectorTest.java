@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.repository;
+
+import io.jrb.labs.common.test.TestEntity;
+import io.jrb.labs.common.test.Testable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.junit.jupiter.api.Test;
+
+import java.beans.ConstructorProperties;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class EntityProjectorTest implements Testable {
+
+    private final EntityProjector projector = new EntityProjector();
+
+    private final TestEntity entity = TestEntity.builder()
+            .guid(UUID.randomUUID())
+            .name(randomString(10, 25))
+            .build();
+
+    @Test
+    void testUsesConstructorPropertiesOverParameterNames() {
+        final RenamedDto dto = projector.project(entity, RenamedDto.class);
+
+        assertThat(dto.getFirst(), is(entity.getGuid()));
+        assertThat(dto.getSecond(), is(entity.getName()));
+        assertThat(projector.propertyNames(TestEntity.class, RenamedDto.class), is(List.of("guid", "name")));
+    }
+
+    @Test
+    void testUsesLombokConstructorProperties() throws Exception {
+        final LombokDto dto = projector.project(entity, LombokDto.class);
+
+        assertThat(dto.getName(), is(entity.getName()));
+        assertThat(LombokDto.class.getDeclaredConstructor(String.class)
+                .isAnnotationPresent(ConstructorProperties.class), is(true));
+    }
+
+    @Getter
+    static class RenamedDto {
+
+        private final UUID first;
+
+        private final String second;
+
+        @ConstructorProperties({ "guid", "name" })
+        RenamedDto(final UUID first, final String second) {
+            this.first = first;
+            this.second = second;
+        }
+
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class LombokDto {
+
+        private final String name;
+
+    }
+
+}
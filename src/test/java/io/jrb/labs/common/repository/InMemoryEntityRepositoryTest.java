@@ -0,0 +1,283 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.repository;
+
+import io.jrb.labs.common.test.TestEntity;
+import io.jrb.labs.common.test.Testable;
+import lombok.Value;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class InMemoryEntityRepositoryTest implements Testable {
+
+    private final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder);
+
+    @Test
+    void testSaveAndFindByGuid() {
+        final TestEntity saved = repository.save(newEntity()).block();
+
+        givenNotNull(saved, (entity) -> {
+            assertThat(entity.getId(), is(notNullValue()));
+            assertThat(entity.getVersion(), is(0L));
+            StepVerifier.create(repository.findByGuid(entity.getGuid()))
+                    .expectNext(entity)
+                    .verifyComplete();
+        });
+    }
+
+    @Test
+    void testFindByGuidWhenMissing() {
+        StepVerifier.create(repository.findByGuid(UUID.randomUUID()))
+                .verifyComplete();
+    }
+
+    @Test
+    void testFindPageAfter() {
+        repository.saveAll(Flux.range(0, 5).map(i -> newEntity())).blockLast();
+
+        StepVerifier.create(repository.findPageAfter(2L, 2).map(TestEntity::getId))
+                .expectNext(3L, 4L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testFindModifiedAfter() {
+        final Instant since = randomTimestamp(5);
+        repository.save(newEntity().toBuilder().modifiedOn(since.minusSeconds(1)).build()).block();
+        final TestEntity first = repository.save(newEntity().toBuilder().modifiedOn(since).build()).block();
+        final TestEntity second = repository.save(newEntity().toBuilder().modifiedOn(since).build()).block();
+
+        givenNotNull(first, (entity) -> {
+            StepVerifier.create(repository.findModifiedAfter(DeltaCursor.since(since), 10))
+                    .expectNext(entity, second)
+                    .verifyComplete();
+            StepVerifier.create(repository.findModifiedAfter(DeltaCursor.after(entity), 10))
+                    .expectNext(second)
+                    .verifyComplete();
+        });
+    }
+
+    @Test
+    void testUpsertInsertsThenUpdates() {
+        final TestEntity entity = newEntity();
+        final String updatedName = randomString(10, 25);
+
+        StepVerifier.create(repository.upsert(entity.getGuid(), () -> entity,
+                existing -> existing.toBuilder().name(updatedName).build()).map(TestEntity::getVersion))
+                .expectNext(0L)
+                .verifyComplete();
+        StepVerifier.create(repository.upsert(entity.getGuid(), () -> entity,
+                existing -> existing.toBuilder().name(updatedName).build()))
+                .assertNext(updated -> {
+                    assertThat(updated.getName(), is(updatedName));
+                    assertThat(updated.getVersion(), is(1L));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testStaleVersionIsRejected() {
+        final TestEntity saved = repository.save(newEntity()).block();
+        final TestEntity updated = repository.save(saved.toBuilder().name(randomString(10, 25)).build()).block();
+
+        assertThat(updated.getVersion(), is(1L));
+        StepVerifier.create(repository.save(saved.toBuilder().name(randomString(10, 25)).build()))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+    }
+
+    @Test
+    void testDuplicateGuidIsRejected() {
+        final TestEntity saved = repository.save(newEntity()).block();
+
+        StepVerifier.create(repository.save(newEntity().toBuilder().guid(saved.getGuid()).build()))
+                .expectError(DuplicateKeyException.class)
+                .verify();
+    }
+
+    @Test
+    void testDeleteByGuidIn() {
+        final TestEntity saved = repository.save(newEntity()).block();
+        final UUID missing = UUID.randomUUID();
+
+        givenNotNull(saved, (entity) -> {
+            StepVerifier.create(repository.deleteByGuidIn(Arrays.asList(entity.getGuid(), missing)))
+                    .expectNext(1)
+                    .verifyComplete();
+            StepVerifier.create(repository.findByGuidIn(Arrays.asList(entity.getGuid(), missing)))
+                    .verifyComplete();
+        });
+    }
+
+    @Test
+    void testFindByGuidWithProjections() {
+        final TestEntity saved = repository.save(newEntity()).block();
+
+        givenNotNull(saved, (entity) -> {
+            StepVerifier.create(repository.findByGuid(entity.getGuid(), NameView.class).map(NameView::getName))
+                    .expectNext(entity.getName())
+                    .verifyComplete();
+            StepVerifier.create(repository.findByGuid(entity.getGuid(), NameDto.class))
+                    .expectNext(new NameDto(entity.getGuid(), entity.getName()))
+                    .verifyComplete();
+        });
+    }
+
+    @Test
+    void testConcurrentSavesKeepOneDeltaRowPerEntity() throws Exception {
+        final Instant since = Instant.now();
+        final List<TestEntity> saved = IntStream.range(0, 3)
+                .mapToObj(i -> repository.save(newEntity().toBuilder().modifiedOn(since).build()).block())
+                .collect(Collectors.toList());
+        final AtomicLong clock = new AtomicLong();
+
+        runConcurrently(8, 200, i -> {
+            final UUID guid = saved.get(i % saved.size()).getGuid();
+            final TestEntity current = repository.findByGuid(guid).block();
+            try {
+                repository.save(current.toBuilder()
+                        .modifiedOn(since.plusMillis(clock.incrementAndGet()))
+                        .build()).block();
+            } catch (final OptimisticLockingFailureException e) {
+                // lost the race to another writer
+            }
+        });
+
+        StepVerifier.create(repository.findModifiedAfter(DeltaCursor.since(since), 1000).map(TestEntity::getGuid)
+                .collectList())
+                .assertNext(guids -> {
+                    assertThat(guids.size(), is(saved.size()));
+                    assertThat(new HashSet<>(guids),
+                            is(saved.stream().map(TestEntity::getGuid).collect(Collectors.toSet())));
+                })
+                .verifyComplete();
+        StepVerifier.create(repository.count())
+                .expectNext((long) saved.size())
+                .verifyComplete();
+    }
+
+    @Test
+    void testFailedSavesLeaveGuidIndexIntact() {
+        final TestEntity first = repository.save(newEntity()).block();
+        final TestEntity second = repository.save(newEntity()).block();
+        final TestEntity updated = repository.save(first.toBuilder().name(randomString(10, 25)).build()).block();
+
+        StepVerifier.create(repository.save(first.toBuilder().guid(UUID.randomUUID()).build()))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+        StepVerifier.create(repository.save(updated.toBuilder().guid(second.getGuid()).build()))
+                .expectError(DuplicateKeyException.class)
+                .verify();
+
+        StepVerifier.create(repository.findByGuid(first.getGuid()))
+                .expectNext(updated)
+                .verifyComplete();
+        StepVerifier.create(repository.findByGuid(second.getGuid()))
+                .expectNext(second)
+                .verifyComplete();
+    }
+
+    @Test
+    void testConcurrentInsertsReserveGuidOnce() throws Exception {
+        final TestEntity entity = newEntity();
+        final AtomicLong inserted = new AtomicLong();
+
+        runConcurrently(8, 64, i -> {
+            try {
+                repository.save(entity).block();
+                inserted.incrementAndGet();
+            } catch (final DuplicateKeyException e) {
+                // another insert won the guid
+            }
+        });
+
+        assertThat(inserted.get(), is(1L));
+        StepVerifier.create(repository.count())
+                .expectNext(1L)
+                .verifyComplete();
+        StepVerifier.create(repository.findByGuid(entity.getGuid()).map(TestEntity::getName))
+                .expectNext(entity.getName())
+                .verifyComplete();
+    }
+
+    private void runConcurrently(final int threads, final int tasks, final IntConsumer task) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> futures = IntStream.range(0, tasks)
+                    .mapToObj(i -> executor.submit(() -> {
+                        start.await();
+                        task.accept(i);
+                        return null;
+                    }))
+                    .collect(Collectors.toList());
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private TestEntity newEntity() {
+        return TestEntity.builder()
+                .guid(UUID.randomUUID())
+                .name(randomString(10, 25))
+                .build();
+    }
+
+    interface NameView {
+        String getName();
+    }
+
+    @Value
+    static class NameDto {
+        UUID guid;
+        String name;
+    }
+
+}
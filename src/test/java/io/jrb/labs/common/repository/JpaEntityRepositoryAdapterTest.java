@@ -0,0 +1,309 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.repository;
+
+import io.jrb.labs.common.service.crud.CrudMetrics;
+import io.jrb.labs.common.test.TestEntity;
+import io.jrb.labs.common.test.Testable;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+class JpaEntityRepositoryAdapterTest implements Testable {
+
+    private final StubRepository stub = new StubRepository();
+
+    @Test
+    void testDefaultsToSharedRegistry() {
+        assertThat(JpaEntityRepositoryConfig.defaults().getMeterRegistry(), is(CrudMetrics.defaultRegistry()));
+    }
+
+    @Test
+    void testOffloadsToNamedExecutor() {
+        final TestEntity entity = stub.add();
+        try (JpaEntityRepositoryAdapter<TestEntity> adapter = newAdapter(config(2, 10, 10))) {
+            StepVerifier.create(adapter.findByGuid(entity.getGuid()))
+                    .expectNext(entity)
+                    .verifyComplete();
+        }
+        assertThat(stub.threads.get(0), startsWith("test-jpa-"));
+    }
+
+    @Test
+    void testSplitsGuidLookupsIntoBatches() {
+        final List<TestEntity> entities = IntStream.range(0, 25).mapToObj(i -> stub.add()).collect(Collectors.toList());
+        final List<UUID> guids = entities.stream().map(TestEntity::getGuid).collect(Collectors.toList());
+
+        try (JpaEntityRepositoryAdapter<TestEntity> adapter = newAdapter(config(2, 10, 10))) {
+            StepVerifier.create(adapter.findByGuidIn(guids).collectList())
+                    .expectNext(entities)
+                    .verifyComplete();
+        }
+        assertThat(stub.batchSizes, contains(10, 10, 5));
+    }
+
+    @Test
+    void testSplitsSavesIntoBatches() {
+        final List<TestEntity> entities = IntStream.range(0, 12)
+                .mapToObj(i -> TestEntity.builder().guid(UUID.randomUUID()).name(randomString(5, 10)).build())
+                .collect(Collectors.toList());
+
+        try (JpaEntityRepositoryAdapter<TestEntity> adapter = newAdapter(config(2, 10, 5))) {
+            StepVerifier.create(adapter.saveAll(entities).collectList())
+                    .expectNext(entities)
+                    .verifyComplete();
+        }
+        assertThat(stub.batchSizes, contains(5, 5, 2));
+    }
+
+    @Test
+    void testPagesThroughAllByKeyset() {
+        final List<TestEntity> entities = IntStream.range(0, 7).mapToObj(i -> stub.add()).collect(Collectors.toList());
+
+        try (JpaEntityRepositoryAdapter<TestEntity> adapter = newAdapter(config(2, 10, 3))) {
+            StepVerifier.create(adapter.findAll().collectList())
+                    .expectNext(entities)
+                    .verifyComplete();
+        }
+        assertThat(stub.batchSizes, contains(3, 3, 1));
+    }
+
+    @Test
+    void testUpsertInsertsInOneBlockingCall() {
+        final UUID guid = UUID.randomUUID();
+        final String name = randomString(10, 25);
+
+        try (JpaEntityRepositoryAdapter<TestEntity> adapter = newAdapter(config(2, 10, 10))) {
+            StepVerifier.create(adapter.upsert(guid,
+                    () -> TestEntity.builder().guid(guid).name(name).build(),
+                    existing -> existing.toBuilder().name(randomString(10, 25)).build()
+            ).map(TestEntity::getName))
+                    .expectNext(name)
+                    .verifyComplete();
+        }
+        assertThat(stub.threads.size(), is(1));
+        assertThat(stub.threads.get(0), startsWith("test-jpa-"));
+    }
+
+    @Test
+    void testUpsertRetriesLostInsertAsUpdate() {
+        final UUID guid = UUID.randomUUID();
+        final String name = randomString(10, 25);
+        stub.raceOnInsert = true;
+
+        try (JpaEntityRepositoryAdapter<TestEntity> adapter = newAdapter(config(2, 10, 10))) {
+            StepVerifier.create(adapter.upsert(guid,
+                    () -> TestEntity.builder().guid(guid).name(randomString(10, 25)).build(),
+                    existing -> existing.toBuilder().name(name).build()
+            ).map(TestEntity::getName))
+                    .expectNext(name)
+                    .verifyComplete();
+        }
+        assertThat(stub.threads.size(), is(2));
+        assertThat(stub.entities.get(guid).getName(), is(name));
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFull() throws Exception {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final TestEntity entity = stub.add();
+        stub.blocked = new CountDownLatch(1);
+
+        try (JpaEntityRepositoryAdapter<TestEntity> adapter = newAdapter(
+                config(1, 1, 10).toBuilder().meterRegistry(registry).build()
+        )) {
+            final Disposable running = adapter.findByGuid(entity.getGuid()).subscribe();
+            assertThat(stub.entered.await(5, TimeUnit.SECONDS), is(true));
+            final Disposable queued = adapter.findByGuid(entity.getGuid()).subscribe();
+
+            StepVerifier.create(adapter.findByGuid(entity.getGuid()))
+                    .expectError(RejectedExecutionException.class)
+                    .verify();
+
+            assertThat(adapter.getActiveCount(), is(1));
+            assertThat(adapter.getQueueDepth(), is(1));
+            assertThat(adapter.getRejectedCount(), is(1L));
+            assertThat(registry.get(JpaEntityRepositoryAdapter.OFFLOAD_QUEUED).gauge().value(), is(1.0));
+            assertThat(registry.get(JpaEntityRepositoryAdapter.OFFLOAD_REJECTED).functionCounter().count(), is(1.0));
+
+            stub.blocked.countDown();
+            running.dispose();
+            queued.dispose();
+        }
+    }
+
+    private JpaEntityRepositoryAdapter<TestEntity> newAdapter(final JpaEntityRepositoryConfig config) {
+        return new JpaEntityRepositoryAdapter<>(stub.proxy(), config);
+    }
+
+    private static JpaEntityRepositoryConfig config(final int maxConcurrency, final int queue, final int batch) {
+        return JpaEntityRepositoryConfig.builder()
+                .name("test-jpa")
+                .maxConcurrency(maxConcurrency)
+                .queueCapacity(queue)
+                .batchSize(batch)
+                .virtualThreads(false)
+                .meterRegistry(new SimpleMeterRegistry())
+                .build();
+    }
+
+    /**
+     * Answers the handful of blocking calls the adapter delegates to, recording batch sizes and calling threads.
+     */
+    private static class StubRepository {
+
+        private final Map<UUID, TestEntity> entities = new ConcurrentHashMap<>();
+
+        private final List<TestEntity> ordered = new CopyOnWriteArrayList<>();
+
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        private volatile CountDownLatch blocked;
+
+        private volatile boolean raceOnInsert;
+
+        TestEntity add() {
+            final TestEntity entity = TestEntity.builder()
+                    .id((long) ordered.size() + 1)
+                    .guid(UUID.randomUUID())
+                    .build();
+            entities.put(entity.getGuid(), entity);
+            ordered.add(entity);
+            return entity;
+        }
+
+        @SuppressWarnings("unchecked")
+        BlockingEntityRepository<TestEntity> proxy() {
+            return (BlockingEntityRepository<TestEntity>) Proxy.newProxyInstance(
+                    getClass().getClassLoader(),
+                    new Class<?>[] { BlockingEntityRepository.class },
+                    (proxy, method, args) -> {
+                        threads.add(Thread.currentThread().getName());
+                        switch (method.getName()) {
+                            case "findByGuid":
+                                return findByGuid((UUID) args[0]);
+                            case "findByGuidIn":
+                                return findByGuidIn((Collection<UUID>) args[0]);
+                            case "findByIdGreaterThan":
+                                return findByIdGreaterThan((Long) args[0], (Pageable) args[1]);
+                            case "saveAll":
+                                return saveAll((Iterable<TestEntity>) args[0]);
+                            case "upsert":
+                                return upsert((UUID) args[0], (Supplier<TestEntity>) args[1],
+                                        (UnaryOperator<TestEntity>) args[2]);
+                            case "toString":
+                                return StubRepository.class.getSimpleName();
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+            );
+        }
+
+        private Optional<TestEntity> findByGuid(final UUID guid) throws InterruptedException {
+            entered.countDown();
+            if (blocked != null) {
+                blocked.await(5, TimeUnit.SECONDS);
+            }
+            return Optional.ofNullable(entities.get(guid));
+        }
+
+        private List<TestEntity> findByGuidIn(final Collection<UUID> guids) {
+            batchSizes.add(guids.size());
+            return guids.stream().map(entities::get).collect(Collectors.toList());
+        }
+
+        private List<TestEntity> findByIdGreaterThan(final Long id, final Pageable pageable) {
+            final List<TestEntity> page = ordered.stream()
+                    .filter(entity -> entity.getId() > id)
+                    .limit(pageable.getPageSize())
+                    .collect(Collectors.toList());
+            batchSizes.add(page.size());
+            return page;
+        }
+
+        /**
+         * Mirrors the transactional default; with {@code raceOnInsert} a concurrent writer takes the GUID first.
+         */
+        private TestEntity upsert(
+                final UUID guid, final Supplier<TestEntity> insert, final UnaryOperator<TestEntity> update
+        ) {
+            final TestEntity existing = entities.get(guid);
+            if (existing != null) {
+                return store(update.apply(existing));
+            }
+            final TestEntity inserted = insert.get();
+            if (raceOnInsert) {
+                raceOnInsert = false;
+                store(inserted);
+                throw new DataIntegrityViolationException("duplicate guid " + guid);
+            }
+            return store(inserted);
+        }
+
+        private TestEntity store(final TestEntity entity) {
+            entities.put(entity.getGuid(), entity);
+            return entity;
+        }
+
+        private List<TestEntity> saveAll(final Iterable<TestEntity> batch) {
+            final List<TestEntity> saved = new ArrayList<>();
+            batch.forEach(saved::add);
+            batchSizes.add(saved.size());
+            return saved;
+        }
+
+    }
+
+}
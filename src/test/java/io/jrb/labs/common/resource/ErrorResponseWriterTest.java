@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.http.HttpStatus;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ErrorResponseWriterTest implements Testable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ErrorResponseWriter writer = new ErrorResponseWriter();
+
+    @Test
+    void testMatchesJacksonShape() throws Exception {
+        final ErrorResponse response = ErrorResponse.builder()
+                .status(HttpStatus.BAD_REQUEST)
+                .code(HttpStatus.BAD_REQUEST.value())
+                .message("bad \"input\"\n" + randomString(10, 25))
+                .bindingError(randomString(10, 25))
+                .bindingError(randomString(10, 25))
+                .build();
+
+        final ObjectNode written = (ObjectNode) objectMapper.readTree(write(response));
+        final ObjectNode expected = objectMapper.valueToTree(response);
+
+        assertThat(written.remove("timestamp").asText(), is(response.getTimestamp().toString()));
+        expected.remove("timestamp");
+        assertThat(written, is(expected));
+    }
+
+    @Test
+    void testOmitsEmptyFields() throws Exception {
+        final ErrorResponse response = ErrorResponse.build(HttpStatus.NOT_FOUND, null);
+
+        final String json = write(response);
+
+        assertThat(json.startsWith("{\"status\":\"NOT_FOUND\",\"code\":404,\"timestamp\":\""), is(true));
+        assertThat(objectMapper.readTree(json).has("bindingErrors"), is(false));
+    }
+
+    @Test
+    void testReleasesBufferWhenWriteFails() {
+        final AtomicBoolean released = new AtomicBoolean();
+        final PooledDataBuffer failing = (PooledDataBuffer) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[] { PooledDataBuffer.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isAllocated":
+                            return true;
+                        case "release":
+                            released.set(true);
+                            return true;
+                        case "write":
+                            throw new IllegalStateException("buffer closed");
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                }
+        );
+        final DataBufferFactory bufferFactory = (DataBufferFactory) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[] { DataBufferFactory.class },
+                (proxy, method, args) -> failing
+        );
+
+        assertThrows(IllegalStateException.class,
+                () -> writer.write(ErrorResponse.build(HttpStatus.CONFLICT, randomString(10, 25)), bufferFactory));
+        assertThat(released.get(), is(true));
+    }
+
+    private String write(final ErrorResponse response) {
+        final DataBuffer buffer = writer.write(response, new DefaultDataBufferFactory());
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.rest;
+
+import io.jrb.labs.common.entity.EntityTimestamp;
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class ConditionalGetSupportTest implements Testable {
+
+    private final Instant modifiedOn = Instant.parse("2021-03-01T10:15:30.123456789Z");
+
+    private final EntityTimestamp timestamp = timestamp(UUID.randomUUID(), modifiedOn);
+
+    private final String etag = ConditionalGetSupport.etag(timestamp);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final String body = randomString(10, 25);
+
+    @Test
+    void testEtagChangesWithModification() {
+        final EntityTimestamp later = timestamp(timestamp.getGuid(), modifiedOn.plusNanos(1));
+
+        assertThat(etag.startsWith("\"" + timestamp.getGuid()), is(true));
+        assertThat(etag.equals(ConditionalGetSupport.etag(later)), is(false));
+        assertThat(ConditionalGetSupport.etag(timestamp(timestamp.getGuid(), null)),
+                is("\"" + timestamp.getGuid() + "\""));
+    }
+
+    @Test
+    void testNotModifiedWhenEtagMatches() {
+        StepVerifier.create(get(MockServerHttpRequest.get("/").ifNoneMatch(etag)))
+                .assertNext(response -> assertThat(response.getStatusCode(), is(HttpStatus.NOT_MODIFIED)))
+                .verifyComplete();
+        StepVerifier.create(route(MockServerHttpRequest.get("/").ifNoneMatch(etag)))
+                .assertNext(response -> assertThat(response.statusCode(), is(HttpStatus.NOT_MODIFIED)))
+                .verifyComplete();
+        assertThat(loads.get(), is(0));
+    }
+
+    @Test
+    void testOkWithValidatorsWhenUnconditional() {
+        StepVerifier.create(get(MockServerHttpRequest.get("/")))
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode(), is(HttpStatus.OK));
+                    assertThat(response.getBody(), is(body));
+                    assertValidators(response.getHeaders());
+                })
+                .verifyComplete();
+        StepVerifier.create(route(MockServerHttpRequest.get("/").ifNoneMatch("\"stale\"")))
+                .assertNext(response -> {
+                    assertThat(response.statusCode(), is(HttpStatus.OK));
+                    assertValidators(response.headers());
+                })
+                .verifyComplete();
+        assertThat(loads.get(), is(2));
+    }
+
+    @Test
+    void testIfModifiedSince() {
+        final long lastModified = modifiedOn.truncatedTo(ChronoUnit.SECONDS).toEpochMilli();
+
+        StepVerifier.create(get(MockServerHttpRequest.get("/").ifModifiedSince(lastModified)))
+                .assertNext(response -> assertThat(response.getStatusCode(), is(HttpStatus.NOT_MODIFIED)))
+                .verifyComplete();
+        StepVerifier.create(route(MockServerHttpRequest.get("/").ifModifiedSince(lastModified)))
+                .assertNext(response -> assertThat(response.statusCode(), is(HttpStatus.NOT_MODIFIED)))
+                .verifyComplete();
+        StepVerifier.create(get(MockServerHttpRequest.get("/").ifModifiedSince(lastModified - 1000)))
+                .assertNext(response -> assertThat(response.getStatusCode(), is(HttpStatus.OK)))
+                .verifyComplete();
+        assertThat(loads.get(), is(1));
+    }
+
+    @Test
+    void testIfNoneMatchTakesPrecedence() {
+        final long later = modifiedOn.plusSeconds(60).toEpochMilli();
+
+        StepVerifier.create(get(MockServerHttpRequest.get("/").ifNoneMatch("\"stale\"").ifModifiedSince(later)))
+                .assertNext(response -> assertThat(response.getStatusCode(), is(HttpStatus.OK)))
+                .verifyComplete();
+        StepVerifier.create(route(MockServerHttpRequest.get("/").ifNoneMatch("\"stale\"").ifModifiedSince(later)))
+                .assertNext(response -> assertThat(response.statusCode(), is(HttpStatus.OK)))
+                .verifyComplete();
+        assertThat(loads.get(), is(2));
+    }
+
+    private void assertValidators(final HttpHeaders headers) {
+        assertThat(headers.getETag(), is(etag));
+        assertThat(headers.getLastModified(), is(modifiedOn.truncatedTo(ChronoUnit.SECONDS).toEpochMilli()));
+    }
+
+    private Mono<ResponseEntity<String>> get(final MockServerHttpRequest.BaseBuilder<?> request) {
+        return ConditionalGetSupport.conditionalGet(MockServerWebExchange.from(request), Mono.just(timestamp),
+                loader());
+    }
+
+    private Mono<ServerResponse> route(final MockServerHttpRequest.BaseBuilder<?> request) {
+        final ServerRequest serverRequest = ServerRequest.create(
+                MockServerWebExchange.from(request), HandlerStrategies.withDefaults().messageReaders()
+        );
+        return ConditionalGetSupport.conditionalGet(serverRequest, Mono.just(timestamp), loader());
+    }
+
+    private Function<EntityTimestamp, Mono<String>> loader() {
+        return ts -> Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return body;
+        });
+    }
+
+    private static EntityTimestamp timestamp(final UUID guid, final Instant modifiedOn) {
+        return new EntityTimestamp() {
+            @Override
+            public UUID getGuid() {
+                return guid;
+            }
+
+            @Override
+            public Instant getModifiedOn() {
+                return modifiedOn;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.rest;
+
+import io.jrb.labs.common.event.ChangeFeedBackpressure;
+import io.jrb.labs.common.event.EntityChangeEvent;
+import io.jrb.labs.common.event.EntityChangeFeed;
+import io.jrb.labs.common.event.EntityChangeType;
+import io.jrb.labs.common.test.TestEntity;
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.result.view.ViewResolver;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class EntityChangeFeedHandlerTest implements Testable {
+
+    private final UUID guid = UUID.randomUUID();
+
+    private final EntityChangeEvent<TestEntity> event = EntityChangeEvent.<TestEntity>builder()
+            .entityType("TestEntity")
+            .guid(guid)
+            .changeType(EntityChangeType.UPDATED)
+            .modifiedOn(Instant.parse("2021-03-01T10:15:30Z"))
+            .build();
+
+    @Test
+    void testWritesEventStream() {
+        final EntityChangeFeedHandler<TestEntity> handler = new EntityChangeFeedHandler<>(
+                () -> Flux.just(event), Duration.ofHours(1)
+        );
+        final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/changes"));
+        final ServerRequest request = ServerRequest.create(exchange, HandlerStrategies.withDefaults().messageReaders());
+
+        final ServerResponse response = handler.handle(request).block();
+        givenNotNull(response, (sse) -> {
+            assertThat(sse.statusCode(), is(HttpStatus.OK));
+            assertThat(sse.headers().getContentType(), is(MediaType.TEXT_EVENT_STREAM));
+            sse.writeTo(exchange, context()).block();
+        });
+
+        final String body = exchange.getResponse().getBodyAsString().block();
+        givenNotNull(body, (frames) -> {
+            assertThat(frames, containsString("id:" + guid + "\n"));
+            assertThat(frames, containsString("event:updated\n"));
+            assertThat(frames, containsString("data:{"));
+            assertThat(frames.endsWith("\n\n"), is(true));
+        });
+    }
+
+    @Test
+    void testSendsHeartbeatWhileIdle() {
+        final EntityChangeFeedHandler<TestEntity> handler = new EntityChangeFeedHandler<>(
+                Flux::never, Duration.ofSeconds(15)
+        );
+
+        StepVerifier.withVirtualTime(() -> handler.toServerSentEvents(Flux.never()))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(15))
+                .assertNext(sse -> {
+                    assertThat(sse.comment(), is("heartbeat"));
+                    assertThat(sse.data(), is(nullValue()));
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testDisconnectReleasesFeedSubscription() {
+        final EntityChangeFeed<TestEntity> feed = new EntityChangeFeed<>(
+                "TestEntity", Clock.systemUTC(), ChangeFeedBackpressure.BUFFER, 16, false
+        );
+        final EntityChangeFeedHandler<TestEntity> handler = new EntityChangeFeedHandler<>(
+                feed::events, Duration.ofHours(1)
+        );
+
+        StepVerifier.create(handler.toServerSentEvents(feed.events()))
+                .then(() -> assertThat(feed.hasSubscribers(), is(true)))
+                .thenCancel()
+                .verify();
+
+        assertThat(feed.hasSubscribers(), is(false));
+    }
+
+    @Test
+    void testCompletesWithFeed() {
+        final EntityChangeFeedHandler<TestEntity> handler = new EntityChangeFeedHandler<>(
+                Flux::empty, Duration.ofMillis(10)
+        );
+
+        StepVerifier.create(handler.toServerSentEvents(Flux.just(event)))
+                .assertNext(sse -> assertThat(sse.id(), is(guid.toString())))
+                .verifyComplete();
+    }
+
+    private static ServerResponse.Context context() {
+        return new ServerResponse.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return HandlerStrategies.withDefaults().messageWriters();
+            }
+
+            @Override
+            public List<ViewResolver> viewResolvers() {
+                return Collections.emptyList();
+            }
+        };
+    }
+
+}
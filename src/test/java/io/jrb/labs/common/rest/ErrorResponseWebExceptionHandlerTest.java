@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jrb.labs.common.service.crud.ConcurrencyLimitExceededException;
+import io.jrb.labs.common.service.crud.CrudOperation;
+import io.jrb.labs.common.service.crud.EntityConflictException;
+import io.jrb.labs.common.service.crud.EntityNotFoundException;
+import io.jrb.labs.common.service.crud.OperationTimeoutException;
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class ErrorResponseWebExceptionHandlerTest implements Testable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ErrorResponseWebExceptionHandler handler = new ErrorResponseWebExceptionHandler();
+
+    @Test
+    void testIsRegisteredAheadOfDefaultHandler() {
+        assertThat(ErrorResponseWebExceptionHandler.class.isAnnotationPresent(Component.class), is(true));
+        assertThat(ErrorResponseWebExceptionHandler.class.getAnnotation(Order.class).value(), is(-2));
+    }
+
+    @Test
+    void testWritesErrorResponse() throws Exception {
+        final EntityNotFoundException e = new EntityNotFoundException("test", UUID.randomUUID());
+        final MockServerWebExchange exchange = exchange();
+
+        StepVerifier.create(handler.handle(exchange, e)).verifyComplete();
+
+        assertThat(exchange.getResponse().getStatusCode(), is(HttpStatus.NOT_FOUND));
+        assertThat(exchange.getResponse().getHeaders().getContentType(), is(MediaType.APPLICATION_JSON));
+        final JsonNode body = objectMapper.readTree(exchange.getResponse().getBodyAsString().block());
+        assertThat(body.get("status").asText(), is(HttpStatus.NOT_FOUND.name()));
+        assertThat(body.get("code").asInt(), is(HttpStatus.NOT_FOUND.value()));
+        assertThat(body.get("message").asText(), is(e.getMessage()));
+    }
+
+    @Test
+    void testUsesResponseStatusReason() throws Exception {
+        final String reason = randomString(10, 25);
+        final MockServerWebExchange exchange = exchange();
+
+        StepVerifier.create(handler.handle(exchange, new ResponseStatusException(HttpStatus.BAD_REQUEST, reason)))
+                .verifyComplete();
+
+        assertThat(exchange.getResponse().getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        final JsonNode body = objectMapper.readTree(exchange.getResponse().getBodyAsString().block());
+        assertThat(body.get("message").asText(), is(reason));
+    }
+
+    @Test
+    void testWritesServerErrorForUnmappedException() throws Exception {
+        final MockServerWebExchange exchange = exchange();
+
+        StepVerifier.create(handler.handle(exchange, new IllegalStateException(randomString(10, 25))))
+                .verifyComplete();
+
+        assertThat(exchange.getResponse().getStatusCode(), is(HttpStatus.INTERNAL_SERVER_ERROR));
+        assertThat(exchange.getResponse().getHeaders().getContentType(), is(MediaType.APPLICATION_JSON));
+        final JsonNode body = objectMapper.readTree(exchange.getResponse().getBodyAsString().block());
+        assertThat(body.get("status").asText(), is(HttpStatus.INTERNAL_SERVER_ERROR.name()));
+        assertThat(body.get("code").asInt(), is(HttpStatus.INTERNAL_SERVER_ERROR.value()));
+    }
+
+    @Test
+    void testPropagatesWhenCommitted() {
+        final MockServerWebExchange exchange = exchange();
+        exchange.getResponse().setComplete().block();
+        final IllegalStateException e = new IllegalStateException(randomString(10, 25));
+
+        StepVerifier.create(handler.handle(exchange, e)).verifyErrorMatches(t -> t == e);
+    }
+
+    @Test
+    void testMatchesControllerAdviceStatuses() {
+        final GlobalErrorHandler advice = new GlobalErrorHandler();
+        final List<Throwable> errors = List.of(
+                new ConcurrencyLimitExceededException("test", CrudOperation.FIND, 1),
+                new EntityConflictException("test", UUID.randomUUID(), null),
+                new EntityNotFoundException("test", UUID.randomUUID()),
+                new OperationTimeoutException("test", CrudOperation.FIND, Duration.ofMillis(10)),
+                new ResponseStatusException(HttpStatus.BAD_REQUEST),
+                new IllegalStateException()
+        );
+
+        for (final Throwable t : errors) {
+            final MockServerWebExchange exchange = exchange();
+            handler.handle(exchange, t).block();
+            assertThat(exchange.getResponse().getStatusCode(), is(advice.handleThrowable(t).getStatusCode()));
+        }
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+    }
+
+}
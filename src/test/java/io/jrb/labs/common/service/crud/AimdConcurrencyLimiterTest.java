@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class AimdConcurrencyLimiterTest implements Testable {
+
+    @Test
+    void testRejectsOverLimit() {
+        final AimdConcurrencyLimiter limiter = newLimiter(1, Duration.ofHours(1));
+        final Disposable inFlight = limiter.limit(Mono.never()).subscribe();
+
+        StepVerifier.create(limiter.limit(Mono.just(1)))
+                .expectError(ConcurrencyLimitExceededException.class)
+                .verify();
+        assertThat(limiter.getRejectedCount(), is(1L));
+
+        inFlight.dispose();
+        StepVerifier.create(limiter.limit(Mono.just(1)))
+                .expectNext(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void testReleasesBeforeCompletionIsSignalled() {
+        final AimdConcurrencyLimiter limiter = newLimiter(1, Duration.ofHours(1));
+
+        StepVerifier.create(limiter.limit(Mono.delay(Duration.ofMillis(5)))
+                .then(Mono.defer(() -> limiter.limit(Flux.interval(Duration.ofMillis(5)).take(1)).last())))
+                .expectNext(0L)
+                .verifyComplete();
+        assertThat(limiter.getRejectedCount(), is(0L));
+        assertThat(limiter.getInFlight(), is(0));
+    }
+
+    @Test
+    void testSlowRequestsShrinkLimit() {
+        final AimdConcurrencyLimiter limiter = newLimiter(10, Duration.ZERO);
+
+        StepVerifier.create(limiter.limit(Mono.delay(Duration.ofMillis(5))))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertThat(limiter.getLimit(), is(9));
+    }
+
+    @Test
+    void testOnlySuccessGrowsLimit() {
+        final AimdConcurrencyLimiter limiter = newLimiter(1, Duration.ofHours(1));
+
+        StepVerifier.create(limiter.limit(Mono.error(new IllegalStateException())))
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertThat(limiter.getLimit(), is(1));
+
+        StepVerifier.create(limiter.limit(Mono.never()))
+                .thenCancel()
+                .verify();
+        assertThat(limiter.getLimit(), is(1));
+
+        StepVerifier.create(limiter.limit(Mono.just(1)))
+                .expectNext(1)
+                .verifyComplete();
+        assertThat(limiter.getLimit(), is(2));
+    }
+
+    @Test
+    void testShrinksOncePerLatencyWindow() {
+        final AimdConcurrencyLimiter limiter = newLimiter(10, Duration.ZERO);
+
+        // all three are admitted before any completes, so they share one latency window
+        final MonoProcessor<Long> gate = MonoProcessor.create();
+        StepVerifier.create(Mono.when(limiter.limit(gate), limiter.limit(gate), limiter.limit(gate)))
+                .then(() -> gate.onNext(1L))
+                .verifyComplete();
+        assertThat(limiter.getLimit(), is(9));
+
+        StepVerifier.create(limiter.limit(Mono.delay(Duration.ofMillis(5))))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertThat(limiter.getLimit(), is(8));
+    }
+
+    @Test
+    void testMeasuresStreamsPerElement() {
+        final AimdConcurrencyLimiter limiter = newLimiter(1, Duration.ofMillis(500));
+
+        StepVerifier.create(limiter.limit(Flux.interval(Duration.ofMillis(5)).take(150)))
+                .expectNextCount(150)
+                .verifyComplete();
+        assertThat(limiter.getLimit(), is(2));
+
+        final AimdConcurrencyLimiter strict = newLimiter(10, Duration.ofMillis(20));
+        StepVerifier.create(strict.limit(Flux.concat(Mono.just(0L), Mono.delay(Duration.ofMillis(50)))))
+                .expectNextCount(2)
+                .verifyComplete();
+        assertThat(strict.getLimit(), is(9));
+    }
+
+    private AimdConcurrencyLimiter newLimiter(final int initialLimit, final Duration latencyThreshold) {
+        return new AimdConcurrencyLimiter(
+                "TestEntity", CrudOperation.FIND, initialLimit, 1, 100, 0.9, latencyThreshold
+        );
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import io.jrb.labs.common.test.Testable;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class CrudMetricsTest implements Testable {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void testSharedRegistrySumsInstancesOfSameType() {
+        final AtomicLong first = new AtomicLong(2);
+        final AtomicLong second = new AtomicLong(3);
+
+        new CrudMetrics(registry, "TestEntity").bindGauge(CrudMetrics.FIND_IN_FLIGHT, first, AtomicLong::get);
+        new CrudMetrics(registry, "TestEntity").bindGauge(CrudMetrics.FIND_IN_FLIGHT, second, AtomicLong::get);
+        new CrudMetrics(registry, "TestEntity").bindCounter(CrudMetrics.FIND_COALESCED, second, AtomicLong::get);
+
+        assertThat(registry.get(CrudMetrics.FIND_IN_FLIGHT).gauge().value(), is(5.0));
+        assertThat(registry.get(CrudMetrics.FIND_COALESCED).functionCounter().count(), is(3.0));
+    }
+
+    @Test
+    void testSharedRegistryKeepsEntityTypesApart() {
+        final AtomicLong first = new AtomicLong(2);
+        final AtomicLong second = new AtomicLong(3);
+
+        new CrudMetrics(registry, "FirstEntity").bindGauge(CrudMetrics.FIND_IN_FLIGHT, first, AtomicLong::get);
+        new CrudMetrics(registry, "SecondEntity").bindGauge(CrudMetrics.FIND_IN_FLIGHT, second, AtomicLong::get);
+
+        assertThat(registry.get(CrudMetrics.FIND_IN_FLIGHT)
+                .tag(CrudMetrics.TAG_ENTITY_TYPE, "SecondEntity")
+                .gauge()
+                .value(), is(3.0));
+    }
+
+    @Test
+    void testOperationTagIgnoresDefaultLocale() {
+        final Locale previous = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            assertThat(CrudOperation.FIND.tagValue(), is("find"));
+            assertThat(CrudOperation.PATCH_BATCH.tagValue(), is("patch_batch"));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class CrudServiceExceptionTest implements Testable {
+
+    @Test
+    void testFormatsMessageOnlyWhenRequested() {
+        final AtomicInteger renders = new AtomicInteger();
+        final Object arg = new Object() {
+            @Override
+            public String toString() {
+                renders.incrementAndGet();
+                return "arg";
+            }
+        };
+
+        final CrudServiceException e = new CrudServiceException(null, "value=%s", arg);
+        assertThat(renders.get(), is(0));
+
+        assertThat(e.getMessage(), is("value=arg"));
+        assertThat(e.getMessage(), is("value=arg"));
+        assertThat(renders.get(), is(1));
+    }
+
+    @Test
+    void testFormatsExpectedMessage() {
+        final UUID guid = UUID.randomUUID();
+
+        assertThat(new EntityNotFoundException("TestEntity", guid).getMessage(),
+                is("No TestEntity resource can be found - guid=" + guid));
+        assertThat(new CrudServiceException("plain").getMessage(), is("plain"));
+    }
+
+    @Test
+    void testKeepsStackTraceByDefault() {
+        assertThat(CrudServiceException.isStackless(), is(false));
+        assertThat(new CrudServiceException("plain").getStackTrace().length > 0, is(true));
+    }
+
+    @Test
+    void testSkipsStackTraceWhenPropertySet() throws Exception {
+        final String previous = System.getProperty(CrudServiceException.STACKLESS_PROPERTY);
+        System.setProperty(CrudServiceException.STACKLESS_PROPERTY, "true");
+        // the flag is read once at class initialization, so the class is loaded afresh in isolation
+        final URL classes = CrudServiceException.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { classes }, null)) {
+            final Class<?> type = loader.loadClass(CrudServiceException.class.getName());
+            final RuntimeException e = (RuntimeException) type.getConstructor(String.class).newInstance("plain");
+
+            assertThat(type.getMethod("isStackless").invoke(null), is(true));
+            assertThat(e.getStackTrace().length, is(0));
+            assertThat(e.getMessage(), is("plain"));
+        } finally {
+            if (previous == null) {
+                System.clearProperty(CrudServiceException.STACKLESS_PROPERTY);
+            } else {
+                System.setProperty(CrudServiceException.STACKLESS_PROPERTY, previous);
+            }
+        }
+    }
+
+}
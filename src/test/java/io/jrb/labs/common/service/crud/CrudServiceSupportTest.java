@@ -0,0 +1,719 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonpatch.JsonPatch;
+import io.jrb.labs.common.event.EntityChangeEvent;
+import io.jrb.labs.common.event.EntityChangeType;
+import io.jrb.labs.common.repository.EntityRepository;
+import io.jrb.labs.common.repository.InMemoryEntityRepository;
+import io.jrb.labs.common.rest.GlobalErrorHandler;
+import io.jrb.labs.common.test.TestEntity;
+import io.jrb.labs.common.test.Testable;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+
+class CrudServiceSupportTest implements Testable {
+
+    @Test
+    void testCreateEntitiesRetriesOnlyUnsavedAfterPartialBatch() {
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder) {
+            @Override
+            public <S extends TestEntity> Flux<S> saveAll(final Iterable<S> entities) {
+                return super.saveAll(entities)
+                        .take(2)
+                        .concatWith(Flux.error(new DataAccessResourceFailureException("batch failed")));
+            }
+        };
+        final List<String> names = IntStream.range(0, 5)
+                .mapToObj(i -> randomString(10, 25))
+                .collect(Collectors.toList());
+
+        final List<CrudResult<TestEntity>> results = newService(repository, CrudServiceConfig.defaults())
+                .createEntities(Flux.fromIterable(names).map(name -> TestEntity.builder().name(name)))
+                .collectList()
+                .block();
+
+        givenNotNull(results, (created) -> {
+            assertThat(created.stream().map(CrudResult::isSuccess).collect(Collectors.toList()), everyItem(is(true)));
+            assertThat(created.stream().map(r -> r.getValue().getName()).collect(Collectors.toList()), is(names));
+        });
+        StepVerifier.create(repository.count())
+                .expectNext(5L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testCreateChunksRecordedAsBatchOperation() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final CrudServiceSupport<TestEntity, TestEntity.TestEntityBuilder> service = newService(
+                new InMemoryEntityRepository<>(TestEntity::toBuilder),
+                CrudServiceConfig.<TestEntity>builder().createBatchSize(2).meterRegistry(registry).build()
+        );
+
+        service.createEntities(Flux.range(0, 3).map(i -> TestEntity.builder().name(randomString(10, 25))))
+                .blockLast();
+
+        assertThat(timerCount(registry, CrudOperation.CREATE_BATCH), is(2L));
+        assertThat(timerCount(registry, CrudOperation.CREATE), is(0L));
+    }
+
+    @Test
+    void testCoalescedFindsShareOneRepositoryCall() {
+        final AtomicInteger loads = new AtomicInteger();
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder) {
+            @Override
+            public Mono<TestEntity> findByGuid(final UUID guid) {
+                loads.incrementAndGet();
+                return super.findByGuid(guid).delayElement(Duration.ofMillis(50));
+            }
+        };
+        final UUID guid = saveEntity(repository).getGuid();
+        final CrudServiceSupport<TestEntity, TestEntity.TestEntityBuilder> service = newService(
+                repository, CrudServiceConfig.<TestEntity>builder().coalesceFinds(true).build()
+        );
+
+        StepVerifier.create(Flux.merge(service.findEntityByGuid(guid), service.findEntityByGuid(guid))
+                .map(TestEntity::getGuid))
+                .expectNext(guid, guid)
+                .verifyComplete();
+        assertThat(loads.get(), is(1));
+    }
+
+    @Test
+    void testUpdateRetriesOptimisticLockConflicts() {
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder);
+        final UUID guid = saveEntity(repository).getGuid();
+        final AtomicInteger attempts = new AtomicInteger();
+        final String name = randomString(10, 25);
+
+        StepVerifier.create(newService(repository, retryConfig(3)).updateEntity(guid, current -> {
+            if (attempts.incrementAndGet() < 3) {
+                repository.save(current).block();
+            }
+            return current.toBuilder().name(name);
+        }).map(TestEntity::getName))
+                .expectNext(name)
+                .verifyComplete();
+        assertThat(attempts.get(), is(3));
+    }
+
+    @Test
+    void testUpdateConflictSurfacesAfterMaxRetries() {
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder);
+        final UUID guid = saveEntity(repository).getGuid();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(newService(repository, retryConfig(2)).updateEntity(guid, current -> {
+            attempts.incrementAndGet();
+            repository.save(current).block();
+            return current.toBuilder().name(randomString(10, 25));
+        }))
+                .expectErrorSatisfies(e -> {
+                    assertThat(e instanceof EntityConflictException, is(true));
+                    assertThat(new GlobalErrorHandler().handleEntityConflictException((EntityConflictException) e)
+                            .getStatusCode(), is(HttpStatus.CONFLICT));
+                })
+                .verify();
+        assertThat(attempts.get(), is(3));
+    }
+
+    @Test
+    void testCreateOrUpdateEntityInsertsThenUpdates() {
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder);
+        final CrudServiceSupport<TestEntity, TestEntity.TestEntityBuilder> service = newService(
+                repository, CrudServiceConfig.defaults()
+        );
+        final UUID guid = UUID.randomUUID();
+        final String name = randomString(10, 25);
+        final String rename = randomString(10, 25);
+
+        final TestEntity inserted = service.createOrUpdateEntity(
+                guid, TestEntity.builder().name(name), current -> current.toBuilder().name(rename)
+        ).block();
+        final TestEntity updated = service.createOrUpdateEntity(
+                guid, TestEntity.builder().name(name), current -> current.toBuilder().name(rename)
+        ).block();
+
+        givenNotNull(inserted, (entity) -> {
+            assertThat(entity.getName(), is(name));
+            assertThat(entity.getVersion(), is(0L));
+        });
+        givenNotNull(updated, (entity) -> {
+            assertThat(entity.getName(), is(rename));
+            assertThat(entity.getVersion(), is(1L));
+            assertThat(entity.getId(), is(inserted.getId()));
+        });
+        StepVerifier.create(repository.count())
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testCreateOrUpdateEntitiesUsesOneLookupAndSavePerChunk() {
+        final AtomicInteger lookups = new AtomicInteger();
+        final AtomicInteger batches = new AtomicInteger();
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder) {
+            @Override
+            public Flux<TestEntity> findByGuidIn(final Collection<UUID> guids) {
+                lookups.incrementAndGet();
+                return super.findByGuidIn(guids);
+            }
+
+            @Override
+            public <S extends TestEntity> Flux<S> saveAll(final Iterable<S> entities) {
+                batches.incrementAndGet();
+                return super.saveAll(entities);
+            }
+        };
+        final UUID existing = saveEntity(repository).getGuid();
+        final UUID created = UUID.randomUUID();
+        final List<Tuple2<UUID, TestEntity.TestEntityBuilder>> upserts = List.of(
+                Tuples.of(existing, TestEntity.builder().name("a")),
+                Tuples.of(created, TestEntity.builder().name("b")),
+                Tuples.of(created, TestEntity.builder().name("c"))
+        );
+
+        final List<CrudResult<TestEntity>> results = newService(repository, CrudServiceConfig.defaults())
+                .createOrUpdateEntities(
+                        Flux.fromIterable(upserts),
+                        (current, incoming) -> current.toBuilder().name(incoming.build().getName())
+                )
+                .collectList()
+                .block();
+
+        givenNotNull(results, (upserted) -> {
+            assertThat(upserted.stream().map(r -> r.getValue().getName()).collect(Collectors.toList()),
+                    is(List.of("a", "b", "c")));
+            assertThat(upserted.stream().map(r -> r.getValue().getVersion()).collect(Collectors.toList()),
+                    is(List.of(1L, 0L, 1L)));
+        });
+        assertThat(lookups.get(), is(1));
+        assertThat(batches.get(), is(1));
+        StepVerifier.create(repository.count())
+                .expectNext(2L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testUpsertRetriesLostInsertRaceAsUpdate() {
+        final InMemoryEntityRepository<TestEntity> delegate = new InMemoryEntityRepository<>(TestEntity::toBuilder);
+        final EntityRepository<TestEntity> repository = racingInsertRepository(delegate);
+        final UUID guid = saveEntity(delegate).getGuid();
+        final CrudServiceSupport<TestEntity, TestEntity.TestEntityBuilder> service = newService(
+                repository, CrudServiceConfig.defaults()
+        );
+        final String name = randomString(10, 25);
+
+        StepVerifier.create(service.changeEvents().map(EntityChangeEvent::getChangeType))
+                .then(() -> StepVerifier.create(service.createOrUpdateEntity(
+                        guid, TestEntity.builder().name(randomString(10, 25)), current -> current.toBuilder().name(name)
+                ).map(TestEntity::getName))
+                        .expectNext(name)
+                        .verifyComplete())
+                .expectNext(EntityChangeType.UPDATED)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        StepVerifier.create(delegate.count())
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testRetrieveEntitiesStreamsAcrossPagesWithoutGapsOrDuplicates() {
+        final List<Long> cursors = new CopyOnWriteArrayList<>();
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder) {
+            @Override
+            public Flux<TestEntity> findPageAfter(final Long cursor, final int pageSize) {
+                cursors.add(cursor);
+                return super.findPageAfter(cursor, pageSize);
+            }
+        };
+        final List<UUID> saved = IntStream.range(0, 10)
+                .mapToObj(i -> saveEntity(repository).getGuid())
+                .collect(Collectors.toList());
+        final CrudServiceSupport<TestEntity, TestEntity.TestEntityBuilder> service = newService(
+                repository, CrudServiceConfig.<TestEntity>builder().retrievePageSize(3).build()
+        );
+
+        StepVerifier.create(service.retrieveEntities().map(TestEntity::getGuid).collectList())
+                .expectNext(saved)
+                .verifyComplete();
+        assertThat(cursors.size(), is(4));
+
+        // a final page that is exactly full needs one more, empty, read to see the end
+        cursors.clear();
+        StepVerifier.create(service.streamEntities(5).map(TestEntity::getGuid).collectList())
+                .expectNext(saved)
+                .verifyComplete();
+        assertThat(cursors.size(), is(3));
+    }
+
+    @Test
+    void testFindEntitiesByGuidsKeepsRequestOrderAndReportsMissing() {
+        final List<Collection<UUID>> chunks = new CopyOnWriteArrayList<>();
+        final EntityRepository<TestEntity> repository = chunkRecordingRepository(chunks);
+        final List<UUID> saved = IntStream.range(0, 6)
+                .mapToObj(i -> saveEntity(repository).getGuid())
+                .collect(Collectors.toList());
+        final UUID missing = UUID.randomUUID();
+        final List<UUID> requested = new ArrayList<>(saved);
+        Collections.reverse(requested);
+        requested.add(3, missing);
+
+        final FindEntitiesResult<TestEntity> result = newService(repository, findConfig(2))
+                .findEntitiesByGuids(requested)
+                .block();
+
+        givenNotNull(result, (found) -> {
+            final List<UUID> expected = new ArrayList<>(requested);
+            expected.remove(missing);
+            assertThat(found.getEntities().stream().map(TestEntity::getGuid).collect(Collectors.toList()),
+                    is(expected));
+            assertThat(found.getMissingGuids(), is(List.of(missing)));
+        });
+    }
+
+    @Test
+    void testFindEntitiesByGuidsCollapsesDuplicates() {
+        final List<Collection<UUID>> chunks = new CopyOnWriteArrayList<>();
+        final EntityRepository<TestEntity> repository = chunkRecordingRepository(chunks);
+        final UUID first = saveEntity(repository).getGuid();
+        final UUID second = saveEntity(repository).getGuid();
+        final UUID missing = UUID.randomUUID();
+
+        final FindEntitiesResult<TestEntity> result = newService(repository, findConfig(10))
+                .findEntitiesByGuids(List.of(first, missing, second, first, missing, second))
+                .block();
+
+        givenNotNull(result, (found) -> {
+            assertThat(found.getEntities().stream().map(TestEntity::getGuid).collect(Collectors.toList()),
+                    is(List.of(first, second)));
+            assertThat(found.getMissingGuids(), is(List.of(missing)));
+        });
+        assertThat(chunks, is(List.of(List.of(first, missing, second))));
+    }
+
+    @Test
+    void testFindEntitiesByGuidsSplitsChunksAtBatchSize() {
+        final List<Collection<UUID>> chunks = new CopyOnWriteArrayList<>();
+        final EntityRepository<TestEntity> repository = chunkRecordingRepository(chunks);
+        final List<UUID> guids = IntStream.range(0, 7)
+                .mapToObj(i -> saveEntity(repository).getGuid())
+                .collect(Collectors.toList());
+
+        final FindEntitiesResult<TestEntity> result = newService(repository, findConfig(3))
+                .findEntitiesByGuids(guids)
+                .block();
+
+        givenNotNull(result, (found) -> assertThat(found.getEntities().size(), is(7)));
+        assertThat(chunks, is(List.of(guids.subList(0, 3), guids.subList(3, 6), guids.subList(6, 7))));
+    }
+
+    @Test
+    void testDeleteEntitiesReportsMissingAndDeletesFoundInOneCall() {
+        final List<Collection<UUID>> deletes = new CopyOnWriteArrayList<>();
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder) {
+            @Override
+            public Mono<Integer> deleteByGuidIn(final Collection<UUID> guids) {
+                deletes.add(Set.copyOf(guids));
+                return super.deleteByGuidIn(guids);
+            }
+        };
+        final List<UUID> saved = IntStream.range(0, 4)
+                .mapToObj(i -> saveEntity(repository).getGuid())
+                .collect(Collectors.toList());
+        final UUID kept = saveEntity(repository).getGuid();
+        final List<UUID> missing = List.of(UUID.randomUUID(), UUID.randomUUID());
+        final List<UUID> requested = new ArrayList<>(saved);
+        requested.add(1, missing.get(0));
+        requested.add(missing.get(1));
+
+        final DeleteEntitiesResult result = newService(repository, CrudServiceConfig.defaults())
+                .deleteEntities(Flux.fromIterable(requested))
+                .block();
+
+        givenNotNull(result, (deleted) -> {
+            assertThat(deleted.getDeletedCount(), is(4L));
+            assertThat(deleted.getMissingGuids(), is(missing));
+        });
+        assertThat(deletes, is(List.of(Set.copyOf(saved))));
+        StepVerifier.create(repository.findAll().map(TestEntity::getGuid))
+                .expectNext(kept)
+                .verifyComplete();
+    }
+
+    @Test
+    void testPatchEntitiesReportsInvalidPatchPerItem() throws Exception {
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder);
+        final List<TestEntity> entities = IntStream.range(0, 3)
+                .mapToObj(i -> saveEntity(repository))
+                .collect(Collectors.toList());
+        final String name = randomString(10, 25);
+        final JsonPatch rename = patch("[{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"" + name + "\"}]");
+        final JsonPatch invalid = patch("[{\"op\":\"test\",\"path\":\"/name\",\"value\":\"" + name + "\"},"
+                + "{\"op\":\"remove\",\"path\":\"/name\"}]");
+
+        final List<CrudResult<TestEntity>> results = patchEntities(newService(repository, CrudServiceConfig.defaults()),
+                Flux.just(
+                        Tuples.of(entities.get(0).getGuid(), rename),
+                        Tuples.of(entities.get(1).getGuid(), invalid),
+                        Tuples.of(entities.get(2).getGuid(), rename)
+                ));
+
+        givenNotNull(results, (patched) -> {
+            assertThat(patched.stream().map(CrudResult::getGuid).collect(Collectors.toList()),
+                    is(entities.stream().map(TestEntity::getGuid).collect(Collectors.toList())));
+            assertThat(patched.get(0).getValue().getName(), is(name));
+            assertThat(patched.get(1).isSuccess(), is(false));
+            assertThat(patched.get(1).getError() instanceof PatchInvalidException, is(true));
+            assertThat(patched.get(2).getValue().getName(), is(name));
+        });
+        StepVerifier.create(repository.findByGuid(entities.get(1).getGuid()).map(TestEntity::getName))
+                .expectNext(entities.get(1).getName())
+                .verifyComplete();
+    }
+
+    @Test
+    void testPatchEntitiesReportsFailingConverterPerItem() throws Exception {
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder);
+        final List<TestEntity> entities = IntStream.range(0, 3)
+                .mapToObj(i -> saveEntity(repository))
+                .collect(Collectors.toList());
+        final UUID failing = entities.get(1).getGuid();
+        final JsonPatch rename = patch("[{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"patched\"}]");
+
+        final List<CrudResult<TestEntity>> results = newService(repository, CrudServiceConfig.defaults())
+                .patchEntities(
+                        Flux.fromIterable(entities).map(entity -> Tuples.of(entity.getGuid(), rename)),
+                        entity -> {
+                            if (entity.getGuid().equals(failing)) {
+                                throw new IllegalStateException("converter failed");
+                            }
+                            return new NameResource(entity.getName());
+                        },
+                        NameResource.class,
+                        (entity, resource) -> entity.toBuilder().name(resource.getName())
+                )
+                .collectList()
+                .block();
+
+        givenNotNull(results, (patched) -> {
+            assertThat(patched.stream().map(CrudResult::isSuccess).collect(Collectors.toList()),
+                    is(List.of(true, false, true)));
+            assertThat(patched.get(1).getGuid(), is(failing));
+            assertThat(patched.get(1).getError() instanceof UpdateEntityException, is(true));
+        });
+        StepVerifier.create(repository.findByGuid(failing).map(TestEntity::getVersion))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testPatchEntitiesReportsFailedLookupPerItem() throws Exception {
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder) {
+            @Override
+            public Flux<TestEntity> findByGuidIn(final Collection<UUID> guids) {
+                return Flux.error(new DataAccessResourceFailureException("lookup failed"));
+            }
+        };
+        final List<UUID> guids = IntStream.range(0, 3)
+                .mapToObj(i -> saveEntity(repository).getGuid())
+                .collect(Collectors.toList());
+        final JsonPatch rename = patch("[{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"patched\"}]");
+
+        final List<CrudResult<TestEntity>> results = patchEntities(
+                newService(repository, CrudServiceConfig.defaults()),
+                Flux.fromIterable(guids).map(guid -> Tuples.of(guid, rename))
+        );
+
+        givenNotNull(results, (patched) -> {
+            assertThat(patched.stream().map(CrudResult::getGuid).collect(Collectors.toList()), is(guids));
+            assertThat(patched.stream().map(r -> r.getError() instanceof UpdateEntityException)
+                    .collect(Collectors.toList()), everyItem(is(true)));
+        });
+    }
+
+    @Test
+    void testPatchEntitiesKeepsInputOrderUnderParallelism() throws Exception {
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder);
+        final List<UUID> guids = IntStream.range(0, 24)
+                .mapToObj(i -> (i % 5 == 0) ? UUID.randomUUID() : saveEntity(repository).getGuid())
+                .collect(Collectors.toList());
+        Collections.shuffle(guids);
+        final JsonPatch patch = patch("[{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"patched\"}]");
+        final CrudServiceSupport<TestEntity, TestEntity.TestEntityBuilder> service = newService(repository,
+                CrudServiceConfig.<TestEntity>builder().patchBatchSize(10).patchParallelism(4).build());
+
+        final List<CrudResult<TestEntity>> results = service.patchEntities(
+                Flux.fromIterable(guids).map(guid -> Tuples.of(guid, patch)),
+                entity -> {
+                    sleep(randomInt(0, 5));
+                    return new NameResource(entity.getName());
+                },
+                NameResource.class,
+                (entity, resource) -> entity.toBuilder().name(resource.getName())
+        ).collectList().block();
+
+        givenNotNull(results, (patched) -> {
+            assertThat(patched.stream().map(CrudResult::getGuid).collect(Collectors.toList()), is(guids));
+            patched.stream()
+                    .filter(CrudResult::isSuccess)
+                    .forEach(result -> assertThat(result.getValue().getName(), is("patched")));
+            assertThat(patched.stream().filter(CrudResult::isSuccess).count(), is(19L));
+        });
+    }
+
+    @Test
+    void testPatchEntitiesRetriesOnlyUnsavedAfterPartialBatch() throws Exception {
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder) {
+            @Override
+            public <S extends TestEntity> Flux<S> saveAll(final Iterable<S> entities) {
+                return super.saveAll(entities)
+                        .take(2)
+                        .concatWith(Flux.error(new DataAccessResourceFailureException("batch failed")));
+            }
+        };
+        final List<UUID> guids = IntStream.range(0, 5)
+                .mapToObj(i -> saveEntity(repository).getGuid())
+                .collect(Collectors.toList());
+        final JsonPatch patch = patch("[{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"patched\"}]");
+
+        final List<CrudResult<TestEntity>> results = patchEntities(
+                newService(repository, CrudServiceConfig.defaults()),
+                Flux.fromIterable(guids).map(guid -> Tuples.of(guid, patch))
+        );
+
+        givenNotNull(results, (patched) -> assertThat(
+                patched.stream().map(CrudResult::isSuccess).collect(Collectors.toList()), everyItem(is(true))
+        ));
+        StepVerifier.create(repository.findByGuidIn(guids).map(TestEntity::getVersion).distinct())
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testFailedFindsDoNotArmHedging() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final AtomicInteger calls = new AtomicInteger();
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder) {
+            @Override
+            public Mono<TestEntity> findByGuid(final UUID guid) {
+                return (calls.incrementAndGet() <= 100)
+                        ? Mono.error(new DataAccessResourceFailureException("find failed"))
+                        : super.findByGuid(guid).delayElement(Duration.ofMillis(20));
+            }
+        };
+        final UUID guid = saveEntity(repository).getGuid();
+        final CrudServiceSupport<TestEntity, TestEntity.TestEntityBuilder> service = newService(
+                repository, hedgeConfig(registry)
+        );
+
+        Flux.range(0, 100).concatMap(i -> service.findEntityByGuid(guid).onErrorResume(t -> Mono.empty())).blockLast();
+        StepVerifier.create(service.findEntityByGuid(guid).map(TestEntity::getGuid))
+                .expectNext(guid)
+                .verifyComplete();
+
+        assertThat(registry.get(CrudMetrics.HEDGE_FIRED).functionCounter().count(), is(0.0));
+        assertThat(calls.get(), is(101));
+    }
+
+    @Test
+    void testWinningHedgeLatencyIsRecorded() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final AtomicInteger calls = new AtomicInteger();
+        final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder) {
+            @Override
+            public Mono<TestEntity> findByGuid(final UUID guid) {
+                final int call = calls.incrementAndGet();
+                if (call <= 100) {
+                    return super.findByGuid(guid);
+                }
+                // past warm-up, primaries hang and hedges answer slowly
+                return (call % 2 == 1) ? Mono.never() : super.findByGuid(guid).delayElement(Duration.ofMillis(30));
+            }
+        };
+        final UUID guid = saveEntity(repository).getGuid();
+        final CrudServiceSupport<TestEntity, TestEntity.TestEntityBuilder> service = newService(
+                repository, hedgeConfig(registry)
+        );
+
+        Flux.range(0, 128).concatMap(i -> service.findEntityByGuid(guid)).blockLast();
+
+        assertThat(registry.get(CrudMetrics.HEDGE_WON).functionCounter().count(), is(28.0));
+        assertThat(registry.get(CrudMetrics.HEDGE_DELAY).gauge().value() >= 30, is(true));
+    }
+
+    /**
+     * Records each {@code IN} chunk and delays the earlier ones longer, so parallel chunks complete out of order.
+     */
+    private EntityRepository<TestEntity> chunkRecordingRepository(final List<Collection<UUID>> chunks) {
+        return new InMemoryEntityRepository<>(TestEntity::toBuilder) {
+            @Override
+            public Flux<TestEntity> findByGuidIn(final Collection<UUID> guids) {
+                chunks.add(List.copyOf(guids));
+                return super.findByGuidIn(guids).delaySubscription(Duration.ofMillis(40L / chunks.size()));
+            }
+        };
+    }
+
+    /**
+     * Exercises the default {@link EntityRepository#upsert}: the first lookup misses an entity that already exists,
+     * as if a concurrent insert won the GUID, so the insert fails with a duplicate key and is retried.
+     */
+    @SuppressWarnings("unchecked")
+    private EntityRepository<TestEntity> racingInsertRepository(final EntityRepository<TestEntity> delegate) {
+        final AtomicBoolean raced = new AtomicBoolean();
+        return (EntityRepository<TestEntity>) Proxy.newProxyInstance(
+                EntityRepository.class.getClassLoader(),
+                new Class<?>[] { EntityRepository.class },
+                (proxy, method, args) -> {
+                    if (method.isDefault() && method.getName().equals("upsert")) {
+                        return MethodHandles.privateLookupIn(EntityRepository.class, MethodHandles.lookup())
+                                .unreflectSpecial(method, EntityRepository.class)
+                                .bindTo(proxy)
+                                .invokeWithArguments(args);
+                    }
+                    if (method.getName().equals("findByGuid") && raced.compareAndSet(false, true)) {
+                        return Mono.empty();
+                    }
+                    try {
+                        return method.invoke(delegate, args);
+                    } catch (final InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private CrudServiceConfig<TestEntity> hedgeConfig(final MeterRegistry registry) {
+        return CrudServiceConfig.<TestEntity>builder()
+                .hedgeFinds(true)
+                .hedgeMinDelay(Duration.ofMillis(1))
+                .meterRegistry(registry)
+                .build();
+    }
+
+    private CrudServiceConfig<TestEntity> findConfig(final int findBatchSize) {
+        return CrudServiceConfig.<TestEntity>builder()
+                .findBatchSize(findBatchSize)
+                .findConcurrency(4)
+                .build();
+    }
+
+    private long timerCount(final MeterRegistry registry, final CrudOperation operation) {
+        return registry.get(CrudMetrics.OPERATION_TIMER)
+                .tag(CrudMetrics.TAG_OPERATION, operation.tagValue())
+                .timer()
+                .count();
+    }
+
+    private TestEntity saveEntity(final EntityRepository<TestEntity> repository) {
+        return repository.save(TestEntity.builder()
+                .guid(UUID.randomUUID())
+                .name(randomString(10, 25))
+                .build()).block();
+    }
+
+    private CrudServiceConfig<TestEntity> retryConfig(final int maxRetries) {
+        return CrudServiceConfig.<TestEntity>builder()
+                .updateMaxRetries(maxRetries)
+                .updateRetryMinBackoff(Duration.ofMillis(1))
+                .updateRetryMaxBackoff(Duration.ofMillis(1))
+                .build();
+    }
+
+    private List<CrudResult<TestEntity>> patchEntities(
+            final CrudServiceSupport<TestEntity, TestEntity.TestEntityBuilder> service,
+            final Flux<Tuple2<UUID, JsonPatch>> patches
+    ) {
+        return service.patchEntities(
+                patches,
+                entity -> new NameResource(entity.getName()),
+                NameResource.class,
+                (entity, resource) -> entity.toBuilder().name(resource.getName())
+        ).collectList().block();
+    }
+
+    private JsonPatch patch(final String json) throws IOException {
+        return JsonPatch.fromJson(new ObjectMapper().readTree(json));
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CrudServiceSupport<TestEntity, TestEntity.TestEntityBuilder> newService(
+            final EntityRepository<TestEntity> repository, final CrudServiceConfig<TestEntity> config
+    ) {
+        return new CrudServiceSupport<>(TestEntity.class, repository, new ObjectMapper(), config) {
+        };
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class NameResource {
+
+        private String name;
+
+    }
+
+}
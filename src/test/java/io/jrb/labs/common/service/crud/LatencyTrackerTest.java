@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class LatencyTrackerTest implements Testable {
+
+    @Test
+    void testUnknownUntilEnoughSamples() {
+        final LatencyTracker tracker = new LatencyTracker(0.95, 1000, 10);
+        for (int i = 1; i < 100; i++) {
+            tracker.record(i);
+        }
+        assertThat(tracker.getPercentileNanos(), is(-1L));
+    }
+
+    @Test
+    void testTracksPercentile() {
+        final LatencyTracker tracker = new LatencyTracker(0.95, 1000, 10);
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(i);
+        }
+        assertThat(tracker.getPercentileNanos(), is(95L));
+    }
+
+    @Test
+    void testFirstPercentileAtMinSamplesRegardlessOfInterval() {
+        final LatencyTracker tracker = new LatencyTracker(0.95, 1024, 128);
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(i);
+        }
+        assertThat(tracker.getPercentileNanos(), is(95L));
+
+        for (int i = 101; i <= 127; i++) {
+            tracker.record(1000);
+        }
+        assertThat(tracker.getPercentileNanos(), is(95L));
+        tracker.record(1000);
+        assertThat(tracker.getPercentileNanos(), is(1000L));
+    }
+
+    @Test
+    void testSlidesWindow() {
+        final LatencyTracker tracker = new LatencyTracker(0.5, 100, 100);
+        for (int i = 1; i <= 200; i++) {
+            tracker.record(i);
+        }
+        assertThat(tracker.getPercentileNanos(), is(150L));
+    }
+
+}
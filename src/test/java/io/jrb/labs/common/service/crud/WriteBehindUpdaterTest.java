@@ -0,0 +1,170 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Jon Brule <brulejr@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jrb.labs.common.service.crud;
+
+import io.jrb.labs.common.repository.EntityRepository;
+import io.jrb.labs.common.repository.InMemoryEntityRepository;
+import io.jrb.labs.common.test.TestEntity;
+import io.jrb.labs.common.test.Testable;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class WriteBehindUpdaterTest implements Testable {
+
+    private final EntityRepository<TestEntity> repository = new InMemoryEntityRepository<>(TestEntity::toBuilder);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final AtomicInteger batchSaves = new AtomicInteger();
+
+    private final AtomicInteger singleSaves = new AtomicInteger();
+
+    @Test
+    void testFoldsUpdatesToSameEntity() {
+        final UUID guid = saveEntity("");
+        final WriteBehindUpdater<TestEntity> updater = newUpdater(10, repository::saveAll);
+
+        final Mono<TestEntity> first = updater.enqueue(guid, append("a")).cache();
+        final Mono<TestEntity> second = updater.enqueue(guid, append("b")).cache();
+        first.subscribe();
+        second.subscribe();
+        updater.flush().block();
+
+        StepVerifier.create(Flux.concat(first, second).map(TestEntity::getName))
+                .expectNext("ab", "ab")
+                .verifyComplete();
+        assertThat(loads.get(), is(1));
+        assertThat(batchSaves.get(), is(1));
+    }
+
+    @Test
+    void testFailingUpdateFailsOnlyItsCaller() {
+        final UUID guid = saveEntity("");
+        final WriteBehindUpdater<TestEntity> updater = newUpdater(10, repository::saveAll);
+
+        final Mono<TestEntity> failing = updater.enqueue(guid, entity -> {
+            throw new IllegalArgumentException("bad update");
+        }).cache();
+        final Mono<TestEntity> passing = updater.enqueue(guid, append("a")).cache();
+        failing.subscribe(entity -> { }, t -> { });
+        passing.subscribe();
+        updater.flush().block();
+
+        StepVerifier.create(failing)
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        StepVerifier.create(passing.map(TestEntity::getName))
+                .expectNext("a")
+                .verifyComplete();
+    }
+
+    @Test
+    void testPartialBatchFallsBackOnlyForUnsaved() {
+        final List<UUID> guids = List.of(saveEntity(""), saveEntity(""), saveEntity(""));
+        final WriteBehindUpdater<TestEntity> updater = newUpdater(10, entities -> repository.saveAll(entities)
+                .take(1)
+                .concatWith(Flux.error(new DataAccessResourceFailureException("batch failed"))));
+
+        final List<Mono<TestEntity>> results = List.of(
+                updater.enqueue(guids.get(0), append("a")).cache(),
+                updater.enqueue(guids.get(1), append("a")).cache(),
+                updater.enqueue(guids.get(2), append("a")).cache()
+        );
+        results.forEach(Mono::subscribe);
+        updater.flush().block();
+
+        StepVerifier.create(Flux.concat(results).map(TestEntity::getName))
+                .expectNext("a", "a", "a")
+                .verifyComplete();
+        StepVerifier.create(repository.findByGuidIn(guids).map(TestEntity::getName))
+                .expectNext("a", "a", "a")
+                .verifyComplete();
+        assertThat(singleSaves.get(), is(2));
+    }
+
+    @Test
+    void testCloseWaitsForInFlightFlushes() {
+        final UUID guid = saveEntity("");
+        final WriteBehindUpdater<TestEntity> updater = newUpdater(1, entities -> repository.saveAll(entities)
+                .delayElements(Duration.ofMillis(100)));
+
+        final Mono<TestEntity> result = updater.enqueue(guid, append("a")).cache();
+        result.subscribe();
+        updater.close().block(Duration.ofSeconds(5));
+
+        StepVerifier.create(repository.findByGuid(guid).map(TestEntity::getName))
+                .expectNext("a")
+                .verifyComplete();
+        StepVerifier.create(updater.enqueue(guid, append("b")))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    private WriteBehindUpdater<TestEntity> newUpdater(
+            final int maxBatchSize, final Function<List<TestEntity>, Flux<TestEntity>> batchSaver
+    ) {
+        return new WriteBehindUpdater<>(
+                Duration.ofHours(1),
+                maxBatchSize,
+                Schedulers.parallel(),
+                guid -> {
+                    loads.incrementAndGet();
+                    return repository.findByGuid(guid);
+                },
+                entities -> {
+                    batchSaves.incrementAndGet();
+                    return batchSaver.apply(entities);
+                },
+                (guid, update) -> {
+                    singleSaves.incrementAndGet();
+                    return repository.findByGuid(guid).map(update).flatMap(repository::save);
+                }
+        );
+    }
+
+    private UUID saveEntity(final String name) {
+        final UUID guid = UUID.randomUUID();
+        repository.save(TestEntity.builder().guid(guid).name(name).build()).block();
+        return guid;
+    }
+
+    private UnaryOperator<TestEntity> append(final String suffix) {
+        return entity -> entity.toBuilder().name(entity.getName() + suffix).build();
+    }
+
+}